@@ -0,0 +1,137 @@
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Totais de uma passada pelas transações: saldo, por categoria e por mês, com quantidade
+// e menor/maior valor (centavos). Não guarda as transações, só os somatórios, então serve
+// para arquivos de qualquer tamanho; agregadores de partes diferentes podem ser juntados.
+public class Agregador {
+    private final Soma total = new Soma();
+    // Posição = id em Categorias (o mesmo em todas as threads); o nome só entra em getPorCategoria()
+    private Soma[] porCategoria = new Soma[16];
+    private final Map<Integer, Soma> porMes = new HashMap<>();
+
+    // Linhas vêm quase sempre em ordem de data: evita refazer a chave do mês a cada uma
+    private LocalDate ultimaData;
+    private Soma ultimoMes;
+
+    public void adicionar(Transacao t) {
+        LocalDate data = t.getData();
+        if (data != ultimaData) {
+            ultimaData = data;
+            ultimoMes = porMes.computeIfAbsent(data.getYear() * 12 + data.getMonthValue() - 1, m -> new Soma());
+        }
+        Soma categoria = soma(t.getCategoriaId());
+
+        // Mesma regra da Calculadora: tipos que não são Receita nem Despesa só contam na quantidade
+        long receita = 0;
+        long despesa = 0;
+        if (t.getTipo() == Tipo.RECEITA) {
+            receita = t.getValorCentavos();
+        } else if (t.getTipo() == Tipo.DESPESA) {
+            despesa = t.getValorCentavos();
+        }
+        long valor = t.getValorCentavos();
+        total.somar(valor, receita, despesa);
+        categoria.somar(valor, receita, despesa);
+        ultimoMes.somar(valor, receita, despesa);
+    }
+
+    // Soma os totais do outro neste e devolve este
+    public Agregador juntar(Agregador outro) {
+        total.juntar(outro.total);
+        for (int id = 0; id < outro.porCategoria.length; id++) {
+            if (outro.porCategoria[id] != null) {
+                soma(id).juntar(outro.porCategoria[id]);
+            }
+        }
+        outro.porMes.forEach((mes, soma) -> porMes.computeIfAbsent(mes, m -> new Soma()).juntar(soma));
+        return this;
+    }
+
+    public Soma getTotal() {
+        return total;
+    }
+
+    // Ordenado pelo nome da categoria
+    public Map<String, Soma> getPorCategoria() {
+        Map<String, Soma> categorias = new TreeMap<>();
+        for (int id = 0; id < porCategoria.length; id++) {
+            if (porCategoria[id] != null) {
+                categorias.put(Categorias.nome(id), porCategoria[id]);
+            }
+        }
+        return categorias;
+    }
+
+    // Ordenado cronologicamente
+    public Map<YearMonth, Soma> getPorMes() {
+        Map<YearMonth, Soma> meses = new TreeMap<>();
+        porMes.forEach((mes, soma) -> meses.put(YearMonth.of(Math.floorDiv(mes, 12), Math.floorMod(mes, 12) + 1), soma));
+        return meses;
+    }
+
+    private Soma soma(int categoriaId) {
+        if (categoriaId >= porCategoria.length) {
+            porCategoria = Arrays.copyOf(porCategoria, Math.max(categoriaId + 1, porCategoria.length * 2));
+        }
+        Soma soma = porCategoria[categoriaId];
+        if (soma == null) {
+            soma = new Soma();
+            porCategoria[categoriaId] = soma;
+        }
+        return soma;
+    }
+
+    public static class Soma {
+        private long receitas;
+        private long despesas;
+        private long quantidade;
+        private long menorValor = Long.MAX_VALUE;
+        private long maiorValor = Long.MIN_VALUE;
+
+        void somar(long valor, long receita, long despesa) {
+            receitas += receita;
+            despesas += despesa;
+            quantidade++;
+            menorValor = Math.min(menorValor, valor);
+            maiorValor = Math.max(maiorValor, valor);
+        }
+
+        void juntar(Soma outra) {
+            receitas += outra.receitas;
+            despesas += outra.despesas;
+            quantidade += outra.quantidade;
+            menorValor = Math.min(menorValor, outra.menorValor);
+            maiorValor = Math.max(maiorValor, outra.maiorValor);
+        }
+
+        public long getReceitas() {
+            return receitas;
+        }
+
+        public long getDespesas() {
+            return despesas;
+        }
+
+        public long getSaldo() {
+            return receitas - despesas;
+        }
+
+        public long getQuantidade() {
+            return quantidade;
+        }
+
+        // Menor e maior valor (qualquer tipo); 0 quando não há transações
+        public long getMenorValor() {
+            return quantidade == 0 ? 0 : menorValor;
+        }
+
+        public long getMaiorValor() {
+            return quantidade == 0 ? 0 : maiorValor;
+        }
+    }
+}
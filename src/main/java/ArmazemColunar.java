@@ -0,0 +1,206 @@
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+// Lista de transações guardada em colunas de primitivos em vez de um objeto por linha:
+//   dia epoch (int), valor em centavos (long), tipo (byte), categoria (short), descrição (int)
+// Tipo é o ordinal do enum, categoria o id em Categorias e descrição um id no dicionário do
+// próprio armazém, então textos repetidos ocupam memória uma vez só.
+// Cada linha custa ~19 bytes; get() monta um Transacao novo a cada chamada, então alterar o
+// objeto devolvido não muda o armazém (use set()).
+public class ArmazemColunar extends AbstractList<Transacao> implements RandomAccess {
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    private int tamanho;
+    private int[] dias = new int[CAPACIDADE_INICIAL];
+    private long[] centavos = new long[CAPACIDADE_INICIAL];
+    private byte[] tipos = new byte[CAPACIDADE_INICIAL];
+    private short[] categorias = new short[CAPACIDADE_INICIAL];
+    private int[] descricoes = new int[CAPACIDADE_INICIAL];
+
+    private static final Tipo[] TIPOS = Tipo.values();
+
+    private final Dicionario dicionarioDescricoes;
+
+    public ArmazemColunar() {
+        this(new Dicionario());
+    }
+
+    public ArmazemColunar(List<Transacao> transacoes) {
+        this();
+        garantirCapacidade(transacoes.size());
+        addAll(transacoes);
+    }
+
+    private ArmazemColunar(Dicionario dicionarioDescricoes) {
+        this.dicionarioDescricoes = dicionarioDescricoes;
+    }
+
+    // Cópia independente feita com cópias de arrays (sem montar um Transacao por linha),
+    // para gravar em outra thread enquanto este continua sendo alterado
+    public ArmazemColunar copiar() {
+        ArmazemColunar copia = new ArmazemColunar(dicionarioDescricoes.copiar());
+        copia.tamanho = tamanho;
+        copia.dias = Arrays.copyOf(dias, tamanho);
+        copia.centavos = Arrays.copyOf(centavos, tamanho);
+        copia.tipos = Arrays.copyOf(tipos, tamanho);
+        copia.categorias = Arrays.copyOf(categorias, tamanho);
+        copia.descricoes = Arrays.copyOf(descricoes, tamanho);
+        return copia;
+    }
+
+    @Override
+    public int size() {
+        return tamanho;
+    }
+
+    @Override
+    public Transacao get(int indice) {
+        verificarIndice(indice);
+        return new Transacao(LocalDate.ofEpochDay(dias[indice]), centavos[indice],
+                dicionarioDescricoes.texto(descricoes[indice]), TIPOS[tipos[indice]], categorias[indice]);
+    }
+
+    @Override
+    public Transacao set(int indice, Transacao t) {
+        Transacao anterior = get(indice);
+        int dia = (int) t.getData().toEpochDay();
+        byte tipo = (byte) t.getTipo().ordinal();
+        short categoria = categoria(t.getCategoriaId());
+        gravar(indice, dia, t.getValorCentavos(), tipo, categoria, dicionarioDescricoes.id(t.getDescricao()));
+        return anterior;
+    }
+
+    @Override
+    public void add(int indice, Transacao t) {
+        if (indice < 0 || indice > tamanho) {
+            throw new IndexOutOfBoundsException("Índice " + indice + ", tamanho " + tamanho);
+        }
+        // Tudo que pode falhar vem antes de mexer nas colunas: uma linha recusada não deixa
+        // nada pela metade
+        int dia = (int) t.getData().toEpochDay();
+        byte tipo = (byte) t.getTipo().ordinal();
+        short categoria = categoria(t.getCategoriaId());
+        int descricao = dicionarioDescricoes.id(t.getDescricao());
+
+        garantirCapacidade(tamanho + 1);
+        if (indice < tamanho) {
+            deslocar(indice, indice + 1, tamanho - indice);
+        }
+        gravar(indice, dia, t.getValorCentavos(), tipo, categoria, descricao);
+        tamanho++;
+        modCount++;
+    }
+
+    @Override
+    public Transacao remove(int indice) {
+        Transacao removida = get(indice);
+        deslocar(indice + 1, indice, tamanho - indice - 1);
+        tamanho--;
+        modCount++;
+        return removida;
+    }
+
+    @Override
+    public void clear() {
+        tamanho = 0;
+        modCount++;
+    }
+
+    // Colunas de uma linha sem montar a Transacao (passadas sobre milhões de linhas)
+    public int getDia(int indice) {
+        verificarIndice(indice);
+        return dias[indice];
+    }
+
+    public long getCentavos(int indice) {
+        verificarIndice(indice);
+        return centavos[indice];
+    }
+
+    public Tipo getTipo(int indice) {
+        verificarIndice(indice);
+        return TIPOS[tipos[indice]];
+    }
+
+    public void definirCategoria(int indice, int categoriaId) {
+        verificarIndice(indice);
+        categorias[indice] = categoria(categoriaId);
+    }
+
+    private void gravar(int indice, int dia, long valorCentavos, byte tipo, short categoria, int descricao) {
+        dias[indice] = dia;
+        centavos[indice] = valorCentavos;
+        tipos[indice] = tipo;
+        categorias[indice] = categoria;
+        descricoes[indice] = descricao;
+    }
+
+    private static short categoria(int categoriaId) {
+        if (categoriaId > Short.MAX_VALUE) {
+            throw new IllegalStateException("Categorias distintas demais para o armazém colunar");
+        }
+        return (short) categoriaId;
+    }
+
+    private void deslocar(int de, int para, int quantidade) {
+        System.arraycopy(dias, de, dias, para, quantidade);
+        System.arraycopy(centavos, de, centavos, para, quantidade);
+        System.arraycopy(tipos, de, tipos, para, quantidade);
+        System.arraycopy(categorias, de, categorias, para, quantidade);
+        System.arraycopy(descricoes, de, descricoes, para, quantidade);
+    }
+
+    private void garantirCapacidade(int minimo) {
+        if (minimo <= dias.length) {
+            return;
+        }
+        int capacidade = Math.max(minimo, dias.length + (dias.length >> 1));
+        dias = Arrays.copyOf(dias, capacidade);
+        centavos = Arrays.copyOf(centavos, capacidade);
+        tipos = Arrays.copyOf(tipos, capacidade);
+        categorias = Arrays.copyOf(categorias, capacidade);
+        descricoes = Arrays.copyOf(descricoes, capacidade);
+    }
+
+    private void verificarIndice(int indice) {
+        if (indice < 0 || indice >= tamanho) {
+            throw new IndexOutOfBoundsException("Índice " + indice + ", tamanho " + tamanho);
+        }
+    }
+
+    // Textos distintos numerados na ordem em que aparecem
+    private static class Dicionario {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> textos = new ArrayList<>();
+
+        // Copia só a lista de textos; o mapa de ids da cópia é refeito se ela for alterada
+        Dicionario copiar() {
+            Dicionario copia = new Dicionario();
+            copia.textos.addAll(textos);
+            return copia;
+        }
+
+        int id(String texto) {
+            for (int i = ids.size(); i < textos.size(); i++) {
+                ids.put(textos.get(i), i);
+            }
+            Integer id = ids.get(texto);
+            if (id == null) {
+                id = textos.size();
+                ids.put(texto, id);
+                textos.add(texto);
+            }
+            return id;
+        }
+
+        String texto(int id) {
+            return textos.get(id);
+        }
+    }
+}
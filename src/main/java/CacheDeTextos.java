@@ -0,0 +1,43 @@
+import java.nio.charset.StandardCharsets;
+
+// Cache de mapeamento direto: bytes iguais devolvem sempre a mesma String.
+// Usado pelos leitores para não criar uma String nova por campo repetido.
+public class CacheDeTextos {
+    private final byte[][] chaves;
+    private final String[] valores;
+
+    public CacheDeTextos(int tamanho) {
+        chaves = new byte[tamanho][];
+        valores = new String[tamanho];
+    }
+
+    public String obter(byte[] origem, int inicio, int fim) {
+        int tamanho = fim - inicio;
+        int hash = 1;
+        for (int i = inicio; i < fim; i++) {
+            hash = 31 * hash + origem[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (chaves.length - 1);
+
+        byte[] chave = chaves[slot];
+        if (chave != null && chave.length == tamanho) {
+            boolean igual = true;
+            for (int i = 0; i < tamanho; i++) {
+                if (chave[i] != origem[inicio + i]) {
+                    igual = false;
+                    break;
+                }
+            }
+            if (igual) {
+                return valores[slot];
+            }
+        }
+
+        byte[] novaChave = new byte[tamanho];
+        System.arraycopy(origem, inicio, novaChave, 0, tamanho);
+        String valor = new String(novaChave, StandardCharsets.UTF_8);
+        chaves[slot] = novaChave;
+        valores[slot] = valor;
+        return valor;
+    }
+}
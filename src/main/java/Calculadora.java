@@ -1,18 +1,324 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
 
 public class Calculadora {
-    private ArrayList<Transacao> transacoes;
+    private List<Transacao> transacoes;
 
-    public ArrayList<Transacao> getTransacoes() {
-        return transacoes;
+    // Totais em centavos mantidos a cada adição, remoção e edição, para não varrer a lista
+    private long receitaTotal;
+    private long despesaTotal;
+    // Posição = id da categoria no dicionário de Categorias (null = sem transações)
+    private Acumulado[] porCategoria = new Acumulado[16];
+    private final IndiceTemporal indiceTemporal = new IndiceTemporal();
+    private final IndiceDeBusca indiceDeBusca = new IndiceDeBusca();
+    // Transações por (data, valor, descrição normalizada), para achar duplicatas sem varrer a lista
+    private final IndiceDeDuplicatas indiceDeDuplicatas;
+    // Linhas que repetem a chave de outra (numa chave com 3 linhas, contam 2)
+    private int duplicatas;
+    private final List<OuvinteDeCalculadora> ouvintes = new CopyOnWriteArrayList<>();
+
+    // Meses mexidos desde a criação, para o salvamento somar de novo só esses nos resumos mensais
+    private final Set<YearMonth> mesesAlterados = new HashSet<>();
+
+    // Muda a cada alteração; versaoSalva é a última que foi gravada no arquivo
+    private long versao;
+    private long versaoSalva;
+
+    // Livro particionado: anos que ainda estão só no disco, com os totais mensais de cada um.
+    // Esses totais já estão somados nos de cima, para saldo e resumo valerem pelo livro inteiro.
+    private LivroParticionado particoes;
+    private final TreeMap<Integer, ResumosMensais> anosNaoCarregados = new TreeMap<>();
+    private long transacoesNaoCarregadas;
+
+    // Somente leitura: alterações passam pelos métodos abaixo para os totais não ficarem errados
+    public List<Transacao> getTransacoes() {
+        return Collections.unmodifiableList(transacoes);
     }
 
-    public Calculadora(ArrayList<Transacao> transacoesIniciais) {
+    public Calculadora(List<Transacao> transacoesIniciais) {
         this.transacoes = transacoesIniciais;
+        this.indiceDeDuplicatas = new IndiceDeDuplicatas(transacoesIniciais.size());
+        for(Transacao t:transacoes){
+            somar(t, 1);
+            registrarChave(t, indiceDeBusca.adicionar(t));
+        }
+    }
+
+    // Lista vazia para carregar as transações: ArrayList por padrão ou,
+    // com -Dcalculadora.armazenamento=colunar, o ArmazemColunar (bem menos memória por linha)
+    public static List<Transacao> novoArmazenamento(){
+        if("colunar".equalsIgnoreCase(System.getProperty("calculadora.armazenamento"))){
+            return new ArmazemColunar();
+        }
+        return new ArrayList<>();
+    }
+
+    // Mutações e buscar() são sincronizados: a busca roda fora da thread da interface
+    public void adicionarOuvinte(OuvinteDeCalculadora ouvinte){
+        ouvintes.add(ouvinte);
+    }
+
+    public void removerOuvinte(OuvinteDeCalculadora ouvinte){
+        ouvintes.remove(ouvinte);
+    }
+
+    // Livro particionado aberto com só os anos recentes (GerenciadorDeArquivos.carregar): os
+    // outros anos entram nos totais pelos resumos mensais e são lidos quando forem necessários
+    public synchronized void usarParticoes(LivroParticionado livro){
+        particoes = livro;
+        SortedSet<Integer> antigos = livro.getAnosAntigos();
+        ResumosMensais resumos;
+        try{
+            resumos = livro.resumir(antigos);
+        }catch (IOException | UncheckedIOException e){
+            System.out.println("Erro ao ler os totais dos anos antigos: " + e.getMessage());
+            resumos = new ResumosMensais();
+        }
+        for(int ano : antigos){
+            ResumosMensais doAno = resumos.filtrar(mes -> mes.getYear() == ano);
+            anosNaoCarregados.put(ano, doAno);
+            somarResumos(doAno, 1);
+        }
+        transacoesNaoCarregadas = livro.getQuantidade(antigos);
+    }
+
+    public synchronized SortedSet<Integer> getAnosNaoCarregados(){
+        return new TreeSet<>(anosNaoCarregados.keySet());
+    }
+
+    // Coloca na calculadora as transações lidas de um ano que estava só no disco. Não conta
+    // como alteração: nada muda no arquivo. Devolve quantas entraram (0 se o ano já estava).
+    private int anexarAno(int ano, List<Transacao> lidas){
+        ResumosMensais resumos = anosNaoCarregados.remove(ano);
+        if(resumos == null){
+            return 0;
+        }
+        somarResumos(resumos, -1);
+        transacoesNaoCarregadas -= particoes.getQuantidade(ano);
+
+        int posicao = transacoes.size();
+        for(Transacao t : lidas){
+            transacoes.add(t);
+            somar(t, 1);
+            registrarChave(t, indiceDeBusca.adicionar(t));
+        }
+        List<Transacao> adicionadas = Collections.unmodifiableList(lidas);
+        for(OuvinteDeCalculadora ouvinte : ouvintes){
+            ouvinte.adicionadas(posicao, adicionadas);
+        }
+        return lidas.size();
+    }
+
+    // Lê do disco um ano que ainda não foi carregado e devolve quantas transações entraram.
+    // O arquivo é lido sem a trava (se quem chama não a tem): a tabela continua lendo as
+    // linhas já carregadas. Por isso os métodos que alteram carregam os anos antes de travar.
+    public int carregarAno(int ano){
+        LivroParticionado livro;
+        synchronized(this){
+            if(!anosNaoCarregados.containsKey(ano)){
+                return 0;
+            }
+            livro = particoes;
+        }
+        List<Transacao> lidas;
+        try{
+            lidas = livro.ler(ano);
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+        synchronized(this){
+            return anexarAno(ano, lidas);
+        }
     }
 
     public void adicionarTransacao(Transacao t){
-        transacoes.add(t);
+        carregarAnosDe(List.of(t));
+        synchronized(this){
+            garantirAno(t.getData().getYear());
+            int posicao = transacoes.size();
+            transacoes.add(t);
+            somar(t, 1);
+            registrarChave(t, indiceDeBusca.adicionar(t));
+            mesesAlterados.add(YearMonth.from(t.getData()));
+            versao++;
+            for(OuvinteDeCalculadora ouvinte : ouvintes){
+                ouvinte.adicionadas(posicao, List.of(t));
+            }
+        }
+    }
+
+    // Anexa várias de uma vez, com um único aviso aos ouvintes
+    public void adicionarTransacoes(Collection<Transacao> novas){
+        carregarAnosDe(novas);
+        synchronized(this){
+            if(novas.isEmpty()){
+                return;
+            }
+            garantirAnos(novas);
+            int posicao = transacoes.size();
+            for(Transacao t : novas){
+                transacoes.add(t);
+                somar(t, 1);
+                registrarChave(t, indiceDeBusca.adicionar(t));
+                mesesAlterados.add(YearMonth.from(t.getData()));
+            }
+            versao++;
+            List<Transacao> adicionadas = Collections.unmodifiableList(new ArrayList<>(novas));
+            for(OuvinteDeCalculadora ouvinte : ouvintes){
+                ouvinte.adicionadas(posicao, adicionadas);
+            }
+        }
+    }
+
+    // Como adicionarTransacoes, mas descarta as que já estão na calculadora (mesma data, valor
+    // e descrição normalizada); devolve quantas foram descartadas. A comparação é por quantidade:
+    // se já existem 2 cafés iguais no mesmo dia e chegam 3, entra 1. Assim um extrato importado
+    // de novo, ou com período sobreposto, não duplica nada, e compras repetidas de verdade
+    // dentro do mesmo extrato continuam entrando.
+    public int adicionarSemDuplicatas(Collection<Transacao> novas){
+        carregarAnosDe(novas);
+        synchronized(this){
+            garantirAnos(novas);
+            IndiceDeDuplicatas vistas = new IndiceDeDuplicatas(novas.size());
+            List<Transacao> aceitas = new ArrayList<>(novas.size());
+            for(Transacao t : novas){
+                int dia = (int) t.getData().toEpochDay();
+                int descricao = indiceDeBusca.idDaDescricao(t.getDescricao());
+                int jaVistas = vistas.adicionar(dia, t.getValorCentavos(), descricao);
+                if(jaVistas >= indiceDeDuplicatas.contar(dia, t.getValorCentavos(), descricao)){
+                    aceitas.add(t);
+                }
+            }
+            adicionarTransacoes(aceitas);
+            return novas.size() - aceitas.size();
+        }
+    }
+
+    // Aplica as regras a todas as transações e troca a categoria das que casam com uma regra
+    // de outra categoria; as demais ficam como estão. Devolve quantas mudaram. As condições de
+    // texto são avaliadas uma vez por descrição distinta (já normalizada no índice de busca) e
+    // as de valor e data por linha, as duas etapas em paralelo; só as trocas são sequenciais.
+    // Com o livro particionado, os anos que estão só no disco são carregados antes.
+    public int recategorizar(RegrasDeCategoria regras){
+        for(int ano : getAnosNaoCarregados()){
+            carregarAno(ano);
+        }
+        synchronized(this){
+            for(int ano : getAnosNaoCarregados()){
+                garantirAno(ano);
+            }
+            long[][] porDescricao = new long[indiceDeBusca.getQuantidadeDeDescricoes()][];
+            IntStream.range(0, porDescricao.length).parallel()
+                    .forEach(id -> porDescricao[id] = regras.regrasPorTexto(indiceDeBusca.descricaoNormalizada(id)));
+
+            // No ArmazemColunar as colunas são lidas direto, sem montar uma Transacao por linha
+            ArmazemColunar colunar = transacoes instanceof ArmazemColunar armazem ? armazem : null;
+            int[] novas = new int[transacoes.size()];
+            IntStream.range(0, novas.length).parallel().forEach(linha -> {
+                long valor;
+                int dia;
+                if(colunar != null){
+                    valor = colunar.getCentavos(linha);
+                    dia = colunar.getDia(linha);
+                }else{
+                    Transacao t = transacoes.get(linha);
+                    valor = t.getValorCentavos();
+                    dia = (int) t.getData().toEpochDay();
+                }
+                int categoria = regras.escolher(porDescricao[indiceDeBusca.descricaoDa(linha)], valor, dia);
+                novas[linha] = categoria == indiceDeBusca.categoriaDa(linha) ? -1 : categoria;
+            });
+
+            ListaDeInteiros alteradas = new ListaDeInteiros();
+            for(int linha = 0; linha < novas.length; linha++){
+                if(novas[linha] < 0){
+                    continue;
+                }
+                int anterior = indiceDeBusca.categoriaDa(linha);
+                Tipo tipo;
+                long valor;
+                LocalDate data;
+                if(colunar != null){
+                    colunar.definirCategoria(linha, novas[linha]);
+                    tipo = colunar.getTipo(linha);
+                    valor = colunar.getCentavos(linha);
+                    data = LocalDate.ofEpochDay(colunar.getDia(linha));
+                }else{
+                    Transacao t = transacoes.get(linha);
+                    transacoes.set(linha, new Transacao(t.getData(), t.getValorCentavos(), t.getDescricao(), t.getTipo(), novas[linha]));
+                    tipo = t.getTipo();
+                    valor = t.getValorCentavos();
+                    data = t.getData();
+                }
+                // Mesma data, valor e descrição: saldo por data, duplicatas e descrições não mudam
+                somarNaCategoria(anterior, tipo, valor, -1);
+                somarNaCategoria(novas[linha], tipo, valor, 1);
+                indiceDeBusca.definirCategoria(linha, novas[linha]);
+                mesesAlterados.add(YearMonth.from(data));
+                alteradas.adicionar(linha);
+            }
+            if(alteradas.tamanho() == 0){
+                return 0;
+            }
+            versao++;
+            int[] indices = alteradas.paraArray();
+            for(OuvinteDeCalculadora ouvinte : ouvintes){
+                ouvinte.recategorizadas(indices);
+            }
+            return indices.length;
+        }
+    }
+
+    // Remove a transação da posição informada e devolve a removida
+    public synchronized Transacao removerTransacao(int indice){
+        Transacao removida = transacoes.remove(indice);
+        somar(removida, -1);
+        removerChave(removida, indiceDeBusca.descricaoDa(indice));
+        indiceDeBusca.remover(indice);
+        mesesAlterados.add(YearMonth.from(removida.getData()));
+        versao++;
+        for(OuvinteDeCalculadora ouvinte : ouvintes){
+            ouvinte.removida(indice, removida);
+        }
+        return removida;
+    }
+
+    // Troca a transação da posição informada e devolve a anterior
+    public Transacao editarTransacao(int indice, Transacao nova){
+        carregarAnosDe(List.of(nova));
+        synchronized(this){
+            garantirAno(nova.getData().getYear());
+            Transacao anterior = transacoes.set(indice, nova);
+            somar(anterior, -1);
+            somar(nova, 1);
+            removerChave(anterior, indiceDeBusca.descricaoDa(indice));
+            indiceDeBusca.substituir(indice, nova);
+            registrarChave(nova, indiceDeBusca.descricaoDa(indice));
+            mesesAlterados.add(YearMonth.from(anterior.getData()));
+            mesesAlterados.add(YearMonth.from(nova.getData()));
+            versao++;
+            for(OuvinteDeCalculadora ouvinte : ouvintes){
+                ouvinte.substituida(indice, anterior, nova);
+            }
+            return anterior;
+        }
     }
 
     public void listarTransacoes(){
@@ -21,17 +327,286 @@ public class Calculadora {
         }
     }
 
-    public double calcularSaldo(){
-        double receitaTotal = 0;
-        double despesaTotal = 0;
-        for(Transacao t:transacoes){
-            if(t.getTipo().equals("Receita")){
-                receitaTotal += t.getValor();
-            }else if(t.getTipo().equals("Despesa")){
-                despesaTotal += t.getValor();
+    // Saldo em centavos
+    public synchronized long calcularSaldo(){
+        return receitaTotal - despesaTotal;
+    }
+
+    // Saldo em centavos considerando só as transações até a data (inclusive), em O(log n).
+    // Anos ainda não carregados entram pelos totais mensais, no primeiro dia de cada mês.
+    public synchronized long saldoAte(LocalDate data){
+        return indiceTemporal.saldoAte((int) data.toEpochDay());
+    }
+
+    // Receitas - despesas (centavos) das transações entre as duas datas (inclusive), em O(log n)
+    public synchronized long somaEntre(LocalDate inicio, LocalDate fim){
+        return indiceTemporal.somaEntre((int) inicio.toEpochDay(), (int) fim.toEpochDay());
+    }
+
+    // Posições (em ordem) das transações cuja descrição contém o texto, ignorando
+    // maiúsculas e acentos; tipo ou categoria null não filtram
+    public synchronized int[] buscar(String texto, Tipo tipo, String categoria){
+        return indiceDeBusca.buscar(texto, tipo, categoria);
+    }
+
+    // Se já existe uma transação com a mesma data, valor e descrição (sem diferenciar
+    // maiúsculas nem acentos), em O(1)
+    public boolean isDuplicata(Transacao t){
+        carregarAnosDe(List.of(t));
+        synchronized(this){
+            garantirAno(t.getData().getYear());
+            int descricao = indiceDeBusca.procurarDescricao(t.getDescricao());
+            return descricao >= 0
+                    && indiceDeDuplicatas.contar((int) t.getData().toEpochDay(), t.getValorCentavos(), descricao) > 0;
+        }
+    }
+
+    // Quantas linhas repetem a data, valor e descrição de outra
+    public synchronized int getQuantidadeDeDuplicatas(){
+        return duplicatas;
+    }
+
+    // Das linhas informadas (por exemplo, o resultado de buscar), as que têm pelo menos
+    // uma outra linha igual na calculadora, incluindo a primeira de cada grupo
+    public synchronized int[] filtrarDuplicatas(int[] linhas){
+        int[] resultado = new int[linhas.length];
+        int quantidade = 0;
+        for(int linha : linhas){
+            Transacao t = transacoes.get(linha);
+            if(indiceDeDuplicatas.contar((int) t.getData().toEpochDay(), t.getValorCentavos(),
+                    indiceDeBusca.descricaoDa(linha)) > 1){
+                resultado[quantidade++] = linha;
             }
         }
-        return receitaTotal - despesaTotal;
+        return Arrays.copyOf(resultado, quantidade);
+    }
+
+    // Totais por categoria e por mês, quantidade e menor/maior valor numa passada só,
+    // dividida entre os núcleos: cada parte soma no seu Agregador e eles são juntados no fim.
+    // Só as transações carregadas; para o livro inteiro no disco, GerenciadorDeArquivos.agregar.
+    public synchronized Agregador agregar(){
+        return ForkJoinPool.commonPool().invoke(new AgregacaoParalela(transacoes, 0, transacoes.size()));
+    }
+
+    // Executa a consulta sobre as transações. Com filtro de texto, tipo ou categoria,
+    // o índice de busca escolhe as linhas e só elas são lidas. Anos do período que ainda
+    // estão só no disco são carregados antes.
+    public synchronized Consulta.Resultado consultar(Consulta consulta){
+        for(int ano : getAnosNaoCarregados()){
+            if((consulta.getInicio() == null || ano >= consulta.getInicio().getYear())
+                    && (consulta.getFim() == null || ano <= consulta.getFim().getYear())){
+                carregarAno(ano);
+            }
+        }
+        Consulta.Acumulacao acumulacao = consulta.novaAcumulacao();
+        if(consulta.getTexto() == null && consulta.getTipo() == null && consulta.getCategoria() == null){
+            for(Transacao t : transacoes){
+                acumulacao.adicionar(t);
+            }
+        }else{
+            for(int linha : indiceDeBusca.buscar(consulta.getTexto(), consulta.getTipo(), consulta.getCategoria())){
+                acumulacao.adicionar(transacoes.get(linha));
+            }
+        }
+        return acumulacao.getResultado();
+    }
+
+    public synchronized Set<YearMonth> getMesesAlterados(){
+        return new HashSet<>(mesesAlterados);
+    }
+
+    // Se há alterações que ainda não foram gravadas no arquivo
+    public synchronized boolean isAlterada(){
+        return versao != versaoSalva;
+    }
+
+    // Transações e meses alterados copiados de uma vez, para serem gravados em outra thread
+    // enquanto a interface continua alterando a calculadora. Copia só referências (ou os
+    // arrays do ArmazemColunar), nunca transação por transação.
+    public synchronized Copia copiar(){
+        List<Transacao> copia = transacoes instanceof ArmazemColunar colunar
+                ? colunar.copiar()
+                : new ArrayList<>(transacoes);
+        return new Copia(copia, new HashSet<>(mesesAlterados), getAnosNaoCarregados(), versao);
+    }
+
+    // Avisa que a cópia foi gravada. Sem alterações depois dela, os resumos mensais no
+    // disco estão em dia e os meses alterados recomeçam vazios.
+    public synchronized void marcarSalva(Copia copia){
+        versaoSalva = Math.max(versaoSalva, copia.versao);
+        if(versao == copia.versao){
+            mesesAlterados.clear();
+        }
+    }
+
+    public synchronized ResumoFinanceiro getResumo(){
+        Map<String, ResumoFinanceiro.Totais> categorias = new TreeMap<>();
+        for(int id = 0; id < porCategoria.length; id++){
+            Acumulado acumulado = porCategoria[id];
+            if(acumulado != null){
+                categorias.put(Categorias.nome(id),
+                        new ResumoFinanceiro.Totais(acumulado.receitas, acumulado.despesas, acumulado.quantidade));
+            }
+        }
+        return new ResumoFinanceiro(receitaTotal, despesaTotal, (int) (transacoes.size() + transacoesNaoCarregadas), categorias);
+    }
+
+    // Antes de mexer em transações de um ano que está só no disco, ele é carregado: o
+    // salvamento regrava inteiros os anos alterados e perderia as que ficaram no disco.
+    // Chamado sem a trava, antes do synchronized de quem altera, para não parar a tabela
+    // enquanto um ano inteiro é lido.
+    private void carregarAnosDe(Collection<Transacao> novas){
+        Set<Integer> faltando;
+        synchronized(this){
+            if(anosNaoCarregados.isEmpty()){
+                return;
+            }
+            faltando = new HashSet<>(anosNaoCarregados.keySet());
+        }
+        for(Transacao t : novas){
+            int ano = t.getData().getYear();
+            if(faltando.remove(ano)){
+                carregarAno(ano);
+            }
+        }
+    }
+
+    // Já com a trava: só se o ano ainda faltar (usarParticoes entre carregarAnosDe e a trava)
+    private void garantirAno(int ano){
+        if(!anosNaoCarregados.isEmpty() && anosNaoCarregados.containsKey(ano)){
+            carregarAno(ano);
+        }
+    }
+
+    private void garantirAnos(Collection<Transacao> novas){
+        if(anosNaoCarregados.isEmpty()){
+            return;
+        }
+        int ultimoAno = Integer.MIN_VALUE;
+        for(Transacao t : novas){
+            int ano = t.getData().getYear();
+            if(ano != ultimoAno){
+                ultimoAno = ano;
+                garantirAno(ano);
+            }
+        }
+    }
+
+    private void somarResumos(ResumosMensais resumos, int sinal){
+        resumos.percorrer((mes, categoria, receitas, despesas, quantidade) -> {
+            receitaTotal += sinal * receitas;
+            despesaTotal += sinal * despesas;
+            indiceTemporal.registrar((int) mes.atDay(1).toEpochDay(), sinal * (receitas - despesas));
+            somarNaCategoria(Categorias.id(categoria), sinal * receitas, sinal * despesas, sinal * (int) quantidade);
+        });
+    }
+
+    private void registrarChave(Transacao t, int descricao){
+        if(indiceDeDuplicatas.adicionar((int) t.getData().toEpochDay(), t.getValorCentavos(), descricao) > 0){
+            duplicatas++;
+        }
+    }
+
+    private void removerChave(Transacao t, int descricao){
+        if(indiceDeDuplicatas.remover((int) t.getData().toEpochDay(), t.getValorCentavos(), descricao) > 1){
+            duplicatas--;
+        }
+    }
+
+    private void somar(Transacao t, int sinal){
+        if(t.getTipo() == Tipo.RECEITA){
+            receitaTotal += sinal * t.getValorCentavos();
+            indiceTemporal.registrar((int) t.getData().toEpochDay(), sinal * t.getValorCentavos());
+        }else if(t.getTipo() == Tipo.DESPESA){
+            despesaTotal += sinal * t.getValorCentavos();
+            indiceTemporal.registrar((int) t.getData().toEpochDay(), -sinal * t.getValorCentavos());
+        }
+        somarNaCategoria(t.getCategoriaId(), t.getTipo(), t.getValorCentavos(), sinal);
+    }
+
+    // Só os totais da categoria (numa recategorização, o resto não muda)
+    private void somarNaCategoria(int categoria, Tipo tipo, long valorCentavos, int sinal){
+        somarNaCategoria(categoria, tipo == Tipo.RECEITA ? sinal * valorCentavos : 0,
+                tipo == Tipo.DESPESA ? sinal * valorCentavos : 0, sinal);
+    }
+
+    private void somarNaCategoria(int categoria, long receitas, long despesas, int quantidade){
+        if(categoria >= porCategoria.length){
+            porCategoria = Arrays.copyOf(porCategoria, Math.max(porCategoria.length * 2, categoria + 1));
+        }
+        Acumulado acumulado = porCategoria[categoria];
+        if(acumulado == null){
+            acumulado = porCategoria[categoria] = new Acumulado();
+        }
+        acumulado.receitas += receitas;
+        acumulado.despesas += despesas;
+        acumulado.quantidade += quantidade;
+        if(acumulado.quantidade == 0){
+            porCategoria[categoria] = null;
+        }
+    }
+
+    private static class AgregacaoParalela extends RecursiveTask<Agregador> {
+        private static final long serialVersionUID = 1L;
+        private static final int LIMITE_SEQUENCIAL = 32_768;
+        private final List<Transacao> transacoes;
+        private final int inicio;
+        private final int fim;
+
+        AgregacaoParalela(List<Transacao> transacoes, int inicio, int fim){
+            this.transacoes = transacoes;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        protected Agregador compute(){
+            if(fim - inicio <= LIMITE_SEQUENCIAL){
+                Agregador agregador = new Agregador();
+                for(int i = inicio; i < fim; i++){
+                    agregador.adicionar(transacoes.get(i));
+                }
+                return agregador;
+            }
+            int meio = (inicio + fim) >>> 1;
+            AgregacaoParalela esquerda = new AgregacaoParalela(transacoes, inicio, meio);
+            esquerda.fork();
+            Agregador direita = new AgregacaoParalela(transacoes, meio, fim).compute();
+            return esquerda.join().juntar(direita);
+        }
+    }
+
+    public static class Copia {
+        private final List<Transacao> transacoes;
+        private final Set<YearMonth> mesesAlterados;
+        private final Set<Integer> anosNaoCarregados;
+        private final long versao;
+
+        Copia(List<Transacao> transacoes, Set<YearMonth> mesesAlterados, Set<Integer> anosNaoCarregados, long versao){
+            this.transacoes = transacoes;
+            this.mesesAlterados = mesesAlterados;
+            this.anosNaoCarregados = anosNaoCarregados;
+            this.versao = versao;
+        }
+
+        public List<Transacao> getTransacoes(){
+            return transacoes;
+        }
+
+        public Set<YearMonth> getMesesAlterados(){
+            return mesesAlterados;
+        }
+
+        // Anos do livro particionado que ficaram só no disco (vazio sem particionamento)
+        public Set<Integer> getAnosNaoCarregados(){
+            return anosNaoCarregados;
+        }
+    }
+
+    private static class Acumulado {
+        long receitas;
+        long despesas;
+        int quantidade;
     }
 
 }
@@ -0,0 +1,43 @@
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Dicionário único de categorias: cada nome distinto ganha um id pequeno, na ordem em que
+// aparece, e todas as transações da categoria apontam para a mesma String. Ids nunca mudam
+// nem são reaproveitados, então servem de posição em arrays e são comparados como int.
+// Seguro entre threads: os leitores paralelos registram categorias ao mesmo tempo.
+public class Categorias {
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private static volatile String[] nomes = new String[64];
+    private static int quantidade;
+
+    public static int id(String nome) {
+        Integer id = ids.get(nome);
+        return id != null ? id : registrar(nome);
+    }
+
+    // Id do nome, ou -1 se nenhuma transação usou a categoria até agora
+    public static int procurar(String nome) {
+        return nome == null ? -1 : ids.getOrDefault(nome, -1);
+    }
+
+    public static String nome(int id) {
+        return nomes[id];
+    }
+
+    private static synchronized int registrar(String nome) {
+        Integer existente = ids.get(nome);
+        if (existente != null) {
+            return existente;
+        }
+        // O nome vai para o array antes de o id ser publicado no mapa
+        String[] atuais = nomes;
+        if (quantidade == atuais.length) {
+            atuais = Arrays.copyOf(atuais, quantidade * 2);
+        }
+        atuais[quantidade] = nome;
+        nomes = atuais;
+        ids.put(nome, quantidade);
+        return quantidade++;
+    }
+}
@@ -0,0 +1,366 @@
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Consulta com filtros (período, tipo, categoria, texto) e agrupamento por até duas
+// dimensões, com soma, quantidade e média por grupo. Roda numa passada só: cada grupo é
+// uma posição em arrays de long, achada por uma tabela hash de chaves long.
+// Exemplo: despesas de 2024 por mês e categoria
+//   new Consulta().entre(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31))
+//           .doTipo(Tipo.DESPESA).agruparPor(Consulta.Dimensao.MES, Consulta.Dimensao.CATEGORIA)
+public class Consulta {
+
+    public enum Dimensao {
+        CATEGORIA, TIPO, SEMANA, MES, ANO;
+
+        public String getNome() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private LocalDate inicio;
+    private LocalDate fim;
+    private Tipo tipo;
+    private String categoria;
+    private String texto;
+    private Dimensao[] dimensoes = new Dimensao[0];
+
+    // Datas inclusivas; null deixa o lado em aberto
+    public Consulta entre(LocalDate inicio, LocalDate fim) {
+        this.inicio = inicio;
+        this.fim = fim;
+        return this;
+    }
+
+    public Consulta doTipo(Tipo tipo) {
+        this.tipo = tipo;
+        return this;
+    }
+
+    public Consulta daCategoria(String categoria) {
+        this.categoria = categoria;
+        return this;
+    }
+
+    // Mesma regra da busca da tela: contém o texto, sem diferenciar maiúsculas nem acentos
+    public Consulta comTexto(String texto) {
+        this.texto = texto == null || texto.isEmpty() ? null : texto;
+        return this;
+    }
+
+    public Consulta agruparPor(Dimensao... dimensoes) {
+        if (dimensoes.length > 2) {
+            throw new IllegalArgumentException("Agrupe por no máximo duas dimensões");
+        }
+        this.dimensoes = dimensoes.clone();
+        return this;
+    }
+
+    public LocalDate getInicio() {
+        return inicio;
+    }
+
+    public LocalDate getFim() {
+        return fim;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public String getTexto() {
+        return texto;
+    }
+
+    public List<Dimensao> getDimensoes() {
+        return List.of(dimensoes);
+    }
+
+    public Acumulacao novaAcumulacao() {
+        return new Acumulacao(this);
+    }
+
+    public Resultado executar(Iterable<Transacao> transacoes) {
+        Acumulacao acumulacao = novaAcumulacao();
+        for (Transacao t : transacoes) {
+            acumulacao.adicionar(t);
+        }
+        return acumulacao.getResultado();
+    }
+
+    // Estado de uma execução. Recebe as transações uma a uma (de uma lista ou direto do
+    // arquivo); execuções sobre partes diferentes podem ser juntadas.
+    public static class Acumulacao {
+        private final Consulta consulta;
+        private final int primeiroDia;
+        private final int ultimoDia;
+        private final String textoNormalizado;
+        private final Map<String, Boolean> textoCasa = new HashMap<>();
+        // Categoria entra nos filtros e nas chaves pelo id em Categorias, que é o mesmo em todas as partes
+        private final int categoriaId;
+
+        private long[] chavesDosGrupos = new long[16];
+        private long[] receitas = new long[16];
+        private long[] despesas = new long[16];
+        private long[] valores = new long[16];
+        private long[] quantidades = new long[16];
+        private int grupos;
+
+        // Tabela hash aberta: chave do grupo -> posição + 1 (0 = vazio)
+        private long[] tabelaChaves = new long[64];
+        private int[] tabelaPosicoes = new int[64];
+
+        Acumulacao(Consulta consulta) {
+            this.consulta = consulta;
+            this.primeiroDia = consulta.inicio == null ? Integer.MIN_VALUE : (int) consulta.inicio.toEpochDay();
+            this.ultimoDia = consulta.fim == null ? Integer.MAX_VALUE : (int) consulta.fim.toEpochDay();
+            this.textoNormalizado = consulta.texto == null ? null : IndiceDeBusca.normalizar(consulta.texto);
+            // Registra o nome se ainda não apareceu: a categoria pode surgir mais adiante no arquivo
+            this.categoriaId = consulta.categoria == null ? -1 : Categorias.id(consulta.categoria);
+        }
+
+        public void adicionar(Transacao t) {
+            int dia = (int) t.getData().toEpochDay();
+            if (dia < primeiroDia || dia > ultimoDia
+                    || (consulta.tipo != null && consulta.tipo != t.getTipo())
+                    || (categoriaId >= 0 && categoriaId != t.getCategoriaId())
+                    || (textoNormalizado != null && !textoCasa(t.getDescricao()))) {
+                return;
+            }
+
+            long chave = 0;
+            for (Dimensao dimensao : consulta.dimensoes) {
+                chave = (chave << 32) | (codigo(dimensao, t) & 0xFFFFFFFFL);
+            }
+            int grupo = grupo(chave);
+
+            long valor = t.getValorCentavos();
+            if (t.getTipo() == Tipo.RECEITA) {
+                receitas[grupo] += valor;
+            } else if (t.getTipo() == Tipo.DESPESA) {
+                despesas[grupo] += valor;
+            }
+            valores[grupo] += valor;
+            quantidades[grupo]++;
+        }
+
+        // Soma os grupos da outra nesta e devolve esta
+        public Acumulacao juntar(Acumulacao outra) {
+            for (int i = 0; i < outra.grupos; i++) {
+                int grupo = grupo(outra.chavesDosGrupos[i]);
+                receitas[grupo] += outra.receitas[i];
+                despesas[grupo] += outra.despesas[i];
+                valores[grupo] += outra.valores[i];
+                quantidades[grupo] += outra.quantidades[i];
+            }
+            return this;
+        }
+
+        public Resultado getResultado() {
+            List<Grupo> lista = new ArrayList<>(grupos);
+            for (int i = 0; i < grupos; i++) {
+                Object[] chaves = new Object[consulta.dimensoes.length];
+                for (int d = 0; d < chaves.length; d++) {
+                    int deslocamento = 32 * (chaves.length - 1 - d);
+                    chaves[d] = valorDaChave(consulta.dimensoes[d], (int) (chavesDosGrupos[i] >>> deslocamento));
+                }
+                lista.add(new Grupo(chaves, receitas[i], despesas[i], valores[i], quantidades[i]));
+            }
+            return new Resultado(consulta.getDimensoes(), lista);
+        }
+
+        private boolean textoCasa(String descricao) {
+            Boolean casa = textoCasa.get(descricao);
+            if (casa == null) {
+                casa = IndiceDeBusca.normalizar(descricao).contains(textoNormalizado);
+                // Arquivos com descrições quase todas diferentes não devem encher a memória
+                if (textoCasa.size() >= 65_536) {
+                    textoCasa.clear();
+                }
+                textoCasa.put(descricao, casa);
+            }
+            return casa;
+        }
+
+        private int codigo(Dimensao dimensao, Transacao t) {
+            LocalDate data = t.getData();
+            return switch (dimensao) {
+                case CATEGORIA -> t.getCategoriaId();
+                case TIPO -> t.getTipo().ordinal();
+                case SEMANA -> (int) data.toEpochDay() - data.getDayOfWeek().getValue() + 1;
+                case MES -> data.getYear() * 12 + data.getMonthValue() - 1;
+                case ANO -> data.getYear();
+            };
+        }
+
+        private Object valorDaChave(Dimensao dimensao, int codigo) {
+            return switch (dimensao) {
+                case CATEGORIA -> Categorias.nome(codigo);
+                case TIPO -> Tipo.values()[codigo].getNome();
+                case SEMANA -> LocalDate.ofEpochDay(codigo);
+                case MES -> YearMonth.of(Math.floorDiv(codigo, 12), Math.floorMod(codigo, 12) + 1);
+                case ANO -> codigo;
+            };
+        }
+
+        private int grupo(long chave) {
+            int mascara = tabelaChaves.length - 1;
+            int i = Long.hashCode(chave * 0x9E3779B97F4A7C15L) & mascara;
+            while (tabelaPosicoes[i] != 0) {
+                if (tabelaChaves[i] == chave) {
+                    return tabelaPosicoes[i] - 1;
+                }
+                i = (i + 1) & mascara;
+            }
+
+            int grupo = grupos++;
+            if (grupo == chavesDosGrupos.length) {
+                int capacidade = grupo * 2;
+                chavesDosGrupos = Arrays.copyOf(chavesDosGrupos, capacidade);
+                receitas = Arrays.copyOf(receitas, capacidade);
+                despesas = Arrays.copyOf(despesas, capacidade);
+                valores = Arrays.copyOf(valores, capacidade);
+                quantidades = Arrays.copyOf(quantidades, capacidade);
+            }
+            chavesDosGrupos[grupo] = chave;
+            tabelaChaves[i] = chave;
+            tabelaPosicoes[i] = grupo + 1;
+            if (grupos * 2 > tabelaChaves.length) {
+                redimensionarTabela();
+            }
+            return grupo;
+        }
+
+        private void redimensionarTabela() {
+            tabelaChaves = new long[tabelaChaves.length * 2];
+            tabelaPosicoes = new int[tabelaChaves.length];
+            int mascara = tabelaChaves.length - 1;
+            for (int grupo = 0; grupo < grupos; grupo++) {
+                int i = Long.hashCode(chavesDosGrupos[grupo] * 0x9E3779B97F4A7C15L) & mascara;
+                while (tabelaPosicoes[i] != 0) {
+                    i = (i + 1) & mascara;
+                }
+                tabelaChaves[i] = chavesDosGrupos[grupo];
+                tabelaPosicoes[i] = grupo + 1;
+            }
+        }
+    }
+
+    // Grupos ordenados pelas chaves (nome, data ou número, conforme a dimensão)
+    public static class Resultado {
+        private final List<Dimensao> dimensoes;
+        private final List<Grupo> grupos;
+
+        Resultado(List<Dimensao> dimensoes, List<Grupo> grupos) {
+            grupos.sort(ORDEM);
+            this.dimensoes = dimensoes;
+            this.grupos = Collections.unmodifiableList(grupos);
+        }
+
+        public List<Dimensao> getDimensoes() {
+            return dimensoes;
+        }
+
+        public List<Grupo> getGrupos() {
+            return grupos;
+        }
+
+        // Junta os grupos que têm a mesma chave na dimensão informada, sem reler as transações
+        // (ex.: de MES x CATEGORIA para só CATEGORIA)
+        public Resultado somarPor(Dimensao dimensao) {
+            int posicao = dimensoes.indexOf(dimensao);
+            if (posicao < 0) {
+                throw new IllegalArgumentException("O resultado não está agrupado por " + dimensao.getNome());
+            }
+            Map<Object, Grupo> somados = new HashMap<>();
+            for (Grupo g : grupos) {
+                somados.merge(g.chaves[posicao], new Grupo(new Object[]{g.chaves[posicao]}, g.receitas, g.despesas,
+                        g.valores, g.quantidade), Grupo::somar);
+            }
+            return new Resultado(List.of(dimensao), new ArrayList<>(somados.values()));
+        }
+
+        // Todos os grupos somados num só
+        public Grupo getTotal() {
+            Grupo total = new Grupo(new Object[0], 0, 0, 0, 0);
+            for (Grupo g : grupos) {
+                total = total.somar(g);
+            }
+            return total;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static final Comparator<Grupo> ORDEM = (a, b) -> {
+            for (int i = 0; i < a.chaves.length; i++) {
+                int comparacao = ((Comparable) a.chaves[i]).compareTo(b.chaves[i]);
+                if (comparacao != 0) {
+                    return comparacao;
+                }
+            }
+            return 0;
+        };
+    }
+
+    public static class Grupo {
+        private final Object[] chaves;
+        private final long receitas;
+        private final long despesas;
+        private final long valores;
+        private final long quantidade;
+
+        Grupo(Object[] chaves, long receitas, long despesas, long valores, long quantidade) {
+            this.chaves = chaves;
+            this.receitas = receitas;
+            this.despesas = despesas;
+            this.valores = valores;
+            this.quantidade = quantidade;
+        }
+
+        // String (categoria, tipo), LocalDate (segunda-feira da semana), YearMonth ou Integer (ano)
+        public Object getChave(int dimensao) {
+            return chaves[dimensao];
+        }
+
+        public long getReceitas() {
+            return receitas;
+        }
+
+        public long getDespesas() {
+            return despesas;
+        }
+
+        public long getSaldo() {
+            return receitas - despesas;
+        }
+
+        // Soma dos valores de todas as transações do grupo, de qualquer tipo
+        public long getSoma() {
+            return valores;
+        }
+
+        public long getQuantidade() {
+            return quantidade;
+        }
+
+        // Valor médio em centavos, arredondado
+        public long getMedia() {
+            return quantidade == 0 ? 0 : Math.round((double) valores / quantidade);
+        }
+
+        private Grupo somar(Grupo outro) {
+            return new Grupo(chaves, receitas + outro.receitas, despesas + outro.despesas,
+                    valores + outro.valores, quantidade + outro.quantidade);
+        }
+    }
+}
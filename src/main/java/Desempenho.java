@@ -0,0 +1,135 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Medições repetíveis dos caminhos mais pesados sobre livros-caixa gerados, para
+// comparar antes e depois de uma mudança. Uso:
+//   java -Xmx8g -cp target/classes Desempenho [linhas ...]   (padrão: 10000 100000 1000000)
+// Tudo roda numa pasta temporária; os arquivos de dados da pasta atual não são tocados.
+public class Desempenho {
+    private static final int AQUECIMENTO = 5;
+    private static final int MEDICOES = 10;
+
+    // As mensagens do GerenciadorDeArquivos são descartadas durante as medições
+    private static final PrintStream saida = System.out;
+
+    // Resultados somados aqui para o JIT não descartar o trabalho medido
+    private static long sumidouro;
+
+    private interface Caso {
+        long executar() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] tamanhos = args.length == 0
+                ? new int[]{10_000, 100_000, 1_000_000}
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+        Path pasta = Files.createTempDirectory("calculadora-desempenho");
+        GerenciadorDeArquivos.setDiretorio(pasta);
+        GerenciadorDeArquivos.setDiarioAtivo(false);
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        saida.printf("%-28s %10s %14s %14s%n", "caso", "linhas", "mediana µs/op", "mínimo µs/op");
+        try {
+            for (int linhas : tamanhos) {
+                medirTamanho(linhas);
+            }
+        } finally {
+            System.setOut(saida);
+            try (Stream<Path> arquivos = Files.list(pasta)) {
+                for (Path arquivo : arquivos.toList()) {
+                    Files.delete(arquivo);
+                }
+            }
+            Files.delete(pasta);
+        }
+        saida.println("(soma de controle: " + sumidouro + ")");
+    }
+
+    private static void medirTamanho(int linhas) throws Exception {
+        List<Transacao> transacoes = new ArrayList<>(linhas);
+        new GeradorDeTransacoes(linhas, 42).gerar(transacoes::add);
+
+        for (FormatoDeArquivo formato : FormatoDeArquivo.values()) {
+            GerenciadorDeArquivos.setFormato(formato);
+            String nome = formato.name().toLowerCase(Locale.ROOT);
+            medir("salvar " + nome, linhas, 1, () -> {
+                GerenciadorDeArquivos.salvarAtomicamente(transacoes);
+                return 0;
+            });
+            medir("carregar " + nome, linhas, 1, () -> GerenciadorDeArquivos.carregar(t -> {}));
+        }
+        GerenciadorDeArquivos.setFormato(FormatoDeArquivo.TEXTO);
+
+        medir("montar Calculadora", linhas, 1, () -> new Calculadora(new ArrayList<>(transacoes)).calcularSaldo());
+
+        Calculadora calculadora = new Calculadora(new ArrayList<>(transacoes));
+        medir("calcularSaldo", linhas, 1000, () -> {
+            long soma = 0;
+            for (int i = 0; i < 1000; i++) {
+                soma += calculadora.calcularSaldo();
+            }
+            return soma;
+        });
+
+        // O mesmo filtro da tela, pelo índice e pela varredura que ele substituiu
+        medir("filtro índice", linhas, 1, () -> calculadora.buscar("merc", Tipo.DESPESA, null).length);
+        medir("filtro varredura", linhas, 1, () -> transacoes.stream()
+                .filter(t -> t.getDescricao().toLowerCase().contains("merc"))
+                .filter(t -> t.getTipo() == Tipo.DESPESA)
+                .count());
+
+        medir("agregação dos gráficos", linhas, 1, () -> agregarGraficos(calculadora));
+
+        // Relatório completo (categoria, mês, mínimo/máximo) em uma thread e em fork-join
+        medir("agregar sequencial", linhas, 1, () -> {
+            Agregador agregador = new Agregador();
+            transacoes.forEach(agregador::adicionar);
+            return agregador.getTotal().getSaldo();
+        });
+        medir("agregar paralelo", linhas, 1, () -> calculadora.agregar().getTotal().getSaldo());
+    }
+
+    // Mesmas consultas de MainApp.atualizarGraficos, sem os nós do JavaFX
+    private static long agregarGraficos(Calculadora calculadora) {
+        ResumoFinanceiro resumo = calculadora.getResumo();
+        Map<String, Long> gastosPorCategoria = new LinkedHashMap<>();
+        resumo.getPorCategoria().forEach((categoria, totais) -> {
+            if (totais.getDespesas() > 0) {
+                gastosPorCategoria.put(categoria, totais.getDespesas());
+            }
+        });
+
+        long soma = gastosPorCategoria.size() + resumo.getReceitas() + resumo.getDespesas();
+        LocalDate hoje = LocalDate.now();
+        for (int i = 5; i >= 0; i--) {
+            soma += calculadora.saldoAte(hoje.minusMonths(i));
+        }
+        return soma;
+    }
+
+    private static void medir(String caso, int linhas, int operacoes, Caso medido) throws Exception {
+        for (int i = 0; i < AQUECIMENTO; i++) {
+            sumidouro += medido.executar();
+        }
+        long[] tempos = new long[MEDICOES];
+        for (int i = 0; i < MEDICOES; i++) {
+            long inicio = System.nanoTime();
+            sumidouro += medido.executar();
+            tempos[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(tempos);
+        saida.printf(Locale.ROOT, "%-28s %10d %14.3f %14.3f%n", caso, linhas,
+                tempos[MEDICOES / 2] / 1e3 / operacoes, tempos[0] / 1e3 / operacoes);
+    }
+}
@@ -0,0 +1,282 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Diário de alterações (write-ahead): cada adição, remoção ou edição vira uma linha anexada
+// ao fim de transações.diario, então salvar custa o tamanho da mudança e não do arquivo.
+//
+// Formato:
+//   #diario;<identificação do snapshot>
+//   A;<linha da transação>
+//   R;<índice>;<linha da transação>
+//   E;<índice>;<linha da nova transação>
+//
+// A primeira linha diz a qual versão do arquivo principal o diário se aplica. Se o
+// snapshot foi regravado depois (compactação, salvar()), o diário antigo é descartado.
+public class Diario implements Closeable {
+    private static final String NOME_ARQUIVO = "transações.diario";
+    private static final String CABECALHO = "#diario;";
+    private static final int LIMITE_PENDENTES = 64;
+    private static final long INTERVALO_SINCRONIZACAO_MS = 1000;
+    private static final int LIMITE_REGISTROS = 50_000;
+
+    private final FileChannel canal;
+    private final ScheduledExecutorService sincronizador;
+    private final StringBuilder pendentes = new StringBuilder();
+    private int quantidadePendente;
+
+    private Diario(FileChannel canal) {
+        this.canal = canal;
+        this.sincronizador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "diario-sincronizador");
+            t.setDaemon(true);
+            return t;
+        });
+        // fsync em lote: no máximo um por segundo, mesmo sem novas alterações
+        sincronizador.scheduleWithFixedDelay(() -> {
+            try {
+                sincronizar();
+            } catch (IOException e) {
+                System.out.println("Erro ao gravar o diário: " + e.getMessage());
+            }
+        }, INTERVALO_SINCRONIZACAO_MS, INTERVALO_SINCRONIZACAO_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Abre o diário para as transações já carregadas (snapshot + diário reaplicado).
+    // Se o diário cresceu demais, compacta: grava um snapshot novo e recomeça o diário vazio.
+    public static Diario abrir(List<Transacao> transacoes) throws IOException {
+        String identificacao = GerenciadorDeArquivos.identificarArquivo();
+        int registros = contarRegistros(identificacao);
+
+        if (registros < 0 || registros > LIMITE_REGISTROS) {
+            if (registros > 0) {
+                GerenciadorDeArquivos.salvarAtomicamente(transacoes);
+                identificacao = GerenciadorDeArquivos.identificarArquivo();
+                System.out.println("Diário compactado (" + registros + " registro(s)).");
+            }
+            // Diário novo (ou de um snapshot antigo): recomeça só com o cabeçalho
+            Files.writeString(arquivo(), CABECALHO + identificacao + "\n", StandardCharsets.UTF_8);
+        }
+
+        FileChannel canal = FileChannel.open(arquivo(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Descarta uma última linha incompleta, senão o próximo registro grudaria nela
+        canal.truncate(fimDaUltimaLinha(canal));
+        canal.position(canal.size());
+        return new Diario(canal);
+    }
+
+    // Aplica sobre o snapshot carregado as operações registradas depois dele e
+    // devolve quantas foram aplicadas
+    public static int reaplicar(List<Transacao> transacoes) {
+        int aplicados = 0;
+        try {
+            List<String> linhas = lerLinhasCompletas();
+            if (linhas.isEmpty() || !linhas.get(0).equals(CABECALHO + GerenciadorDeArquivos.identificarArquivo())) {
+                return 0;
+            }
+
+            LeitorDeTransacoes leitor = new LeitorDeTransacoes();
+            for (String linha : linhas.subList(1, linhas.size())) {
+                if (!aplicar(linha, leitor, transacoes)) {
+                    break;
+                }
+                aplicados++;
+            }
+
+            if (aplicados > 0) {
+                System.out.println(aplicados + " alteração(ões) recuperada(s) do diário.");
+            }
+
+        } catch (NoSuchFileException e) {
+            // Sem diário, nada a reaplicar
+        } catch (IOException e) {
+            System.out.println("Erro ao ler o diário: " + e.getMessage());
+        }
+        return aplicados;
+    }
+
+    public synchronized void registrarAdicao(Transacao t) throws IOException {
+        pendentes.append("A;").append(EscritorTexto.linha(t)).append('\n');
+        aoRegistrar();
+    }
+
+    public synchronized void registrarRemocao(int indice, Transacao t) throws IOException {
+        pendentes.append("R;").append(indice).append(';').append(EscritorTexto.linha(t)).append('\n');
+        aoRegistrar();
+    }
+
+    public synchronized void registrarEdicao(int indice, Transacao nova) throws IOException {
+        pendentes.append("E;").append(indice).append(';').append(EscritorTexto.linha(nova)).append('\n');
+        aoRegistrar();
+    }
+
+    public synchronized void sincronizar() throws IOException {
+        if (quantidadePendente == 0) {
+            return;
+        }
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(pendentes.toString());
+        while (bytes.hasRemaining()) {
+            canal.write(bytes);
+        }
+        canal.force(false);
+        pendentes.setLength(0);
+        quantidadePendente = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sincronizador.shutdownNow();
+        try {
+            sincronizar();
+        } finally {
+            canal.close();
+        }
+    }
+
+    private static Path arquivo() {
+        return GerenciadorDeArquivos.caminho(NOME_ARQUIVO);
+    }
+
+    private void aoRegistrar() throws IOException {
+        quantidadePendente++;
+        if (quantidadePendente >= LIMITE_PENDENTES) {
+            sincronizar();
+        }
+    }
+
+    private static boolean aplicar(String linha, LeitorDeTransacoes leitor, List<Transacao> transacoes) {
+        if (linha.startsWith("A;")) {
+            Transacao t = leitor.interpretar(linha.substring(2));
+            if (t == null) {
+                return false;
+            }
+            transacoes.add(t);
+            return true;
+        }
+
+        if (linha.startsWith("R;")) {
+            int separador = linha.indexOf(';', 2);
+            if (separador < 0) {
+                return false;
+            }
+            Transacao t = leitor.interpretar(linha.substring(separador + 1));
+            if (t == null) {
+                return false;
+            }
+
+            int indice;
+            try {
+                indice = Integer.parseInt(linha.substring(2, separador));
+            } catch (NumberFormatException e) {
+                return false;
+            }
+
+            // O índice registrado costuma bater; se não bater, procura a transação igual mais recente
+            if (indice < 0 || indice >= transacoes.size() || !iguais(transacoes.get(indice), t)) {
+                indice = -1;
+                for (int i = transacoes.size() - 1; i >= 0; i--) {
+                    if (iguais(transacoes.get(i), t)) {
+                        indice = i;
+                        break;
+                    }
+                }
+            }
+            if (indice >= 0) {
+                transacoes.remove(indice);
+            }
+            return true;
+        }
+
+        if (linha.startsWith("E;")) {
+            int separador = linha.indexOf(';', 2);
+            if (separador < 0) {
+                return false;
+            }
+            Transacao t = leitor.interpretar(linha.substring(separador + 1));
+            if (t == null) {
+                return false;
+            }
+            try {
+                int indice = Integer.parseInt(linha.substring(2, separador));
+                if (indice >= 0 && indice < transacoes.size()) {
+                    transacoes.set(indice, t);
+                }
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            return true;
+        }
+
+        return false;
+    }
+
+    private static boolean iguais(Transacao a, Transacao b) {
+        return a.getData().equals(b.getData())
+                && a.getValorCentavos() == b.getValorCentavos()
+                && Objects.equals(a.getDescricao(), b.getDescricao())
+                && Objects.equals(a.getTipo(), b.getTipo())
+                && Objects.equals(a.getCategoria(), b.getCategoria());
+    }
+
+    private static long fimDaUltimaLinha(FileChannel canal) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long fim = canal.size();
+        while (fim > 0) {
+            long inicio = Math.max(0, fim - buffer.capacity());
+            buffer.clear().limit((int) (fim - inicio));
+            canal.read(buffer, inicio);
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return inicio + i + 1;
+                }
+            }
+            fim = inicio;
+        }
+        return 0;
+    }
+
+    // Se há operações no diário que ainda não estão no arquivo salvo (nem nos resumos mensais)
+    static boolean temRegistros() throws IOException {
+        return contarRegistros(GerenciadorDeArquivos.identificarArquivo()) > 0;
+    }
+
+    // Quantidade de registros do diário atual, ou -1 se ele não existe ou é de outro snapshot
+    private static int contarRegistros(String identificacao) throws IOException {
+        if (!Files.exists(arquivo())) {
+            return -1;
+        }
+        List<String> linhas = lerLinhasCompletas();
+        if (linhas.isEmpty() || !linhas.get(0).equals(CABECALHO + identificacao)) {
+            return -1;
+        }
+        return linhas.size() - 1;
+    }
+
+    // Só as linhas terminadas em '\n'. Uma última linha sem ele foi cortada durante a gravação
+    // e é descartada por abrir(); mesmo que ainda pareça válida (";Desp" no lugar de
+    // ";Despesa"), não pode ser aplicada.
+    private static List<String> lerLinhasCompletas() throws IOException {
+        byte[] bytes = Files.readAllBytes(arquivo());
+        List<String> linhas = new ArrayList<>();
+        int inicio = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                linhas.add(new String(bytes, inicio, i - inicio, StandardCharsets.UTF_8));
+                inicio = i + 1;
+            }
+        }
+        return linhas;
+    }
+}
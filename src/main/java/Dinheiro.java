@@ -0,0 +1,111 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Valores em dinheiro são guardados como long em centavos: somas exatas e sem alocação.
+// Conversão de e para texto feita na mão; BigDecimal só para formatos incomuns (ex.: 1.5E7).
+public class Dinheiro {
+
+    // Aceita "45,50", "45.5", "-3000", "1.234,56" e "1234.5678" (arredonda meio centavo para cima)
+    public static long converter(String texto){
+        if(texto == null){
+            throw new NumberFormatException("Valor vazio");
+        }
+        String valor = texto.trim();
+        int inicio = 0;
+        boolean negativo = false;
+        if(!valor.isEmpty() && (valor.charAt(0) == '-' || valor.charAt(0) == '+')){
+            negativo = valor.charAt(0) == '-';
+            inicio = 1;
+        }
+
+        // O último '.' ou ',' é o separador decimal; os anteriores são de milhar
+        int separador = Math.max(valor.lastIndexOf('.'), valor.lastIndexOf(','));
+        long inteiro = 0;
+        int algarismos = 0;
+        int algarismosInteiros = 0;
+        int fimInteiro = separador >= 0 ? separador : valor.length();
+        for(int i = inicio; i < fimInteiro; i++){
+            char c = valor.charAt(i);
+            if(c >= '0' && c <= '9'){
+                inteiro = inteiro * 10 + (c - '0');
+                algarismos++;
+                algarismosInteiros++;
+            }else if(c != '.' && c != ','){
+                return converterIncomum(valor);
+            }
+        }
+
+        long fracao = 0;
+        if(separador >= 0){
+            int casas = 0;
+            for(int i = separador + 1; i < valor.length(); i++){
+                char c = valor.charAt(i);
+                if(c < '0' || c > '9'){
+                    return converterIncomum(valor);
+                }
+                if(casas < 2){
+                    fracao = fracao * 10 + (c - '0');
+                }else if(casas == 2 && c >= '5'){
+                    fracao++;
+                }
+                casas++;
+                algarismos++;
+            }
+            if(casas == 1){
+                fracao *= 10;
+            }
+        }
+
+        // Até 16 algarismos antes da vírgula, inteiro * 100 + fracao cabe num long; acima
+        // disso o laço acima já pode ter estourado, e o BigDecimal decide
+        if(algarismos == 0 || algarismosInteiros > 16){
+            return converterIncomum(valor);
+        }
+        long centavos = inteiro * 100 + fracao;
+        return negativo ? -centavos : centavos;
+    }
+
+    // "R$ 1234,56"
+    public static String formatar(long centavos){
+        return "R$ " + paraTexto(centavos, ',');
+    }
+
+    // "1234,56"
+    public static String formatarSemSimbolo(long centavos){
+        return paraTexto(centavos, ',');
+    }
+
+    // "1234.56", o formato gravado no arquivo de transações
+    public static String paraArquivo(long centavos){
+        return paraTexto(centavos, '.');
+    }
+
+    public static double emReais(long centavos){
+        return centavos / 100.0;
+    }
+
+    private static String paraTexto(long centavos, char separador){
+        StringBuilder sb = new StringBuilder(24);
+        long absoluto = Math.abs(centavos);
+        if(centavos < 0){
+            sb.append('-');
+        }
+        sb.append(absoluto / 100).append(separador);
+        long resto = absoluto % 100;
+        if(resto < 10){
+            sb.append('0');
+        }
+        return sb.append(resto).toString();
+    }
+
+    private static long converterIncomum(String valor){
+        try{
+            return new BigDecimal(valor.replace(',', '.'))
+                    .setScale(2, RoundingMode.HALF_UP)
+                    .unscaledValue()
+                    .longValueExact();
+        }catch (ArithmeticException e){
+            throw new NumberFormatException("Valor fora do limite: " + valor);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Formato binário versionado (big-endian):
+//   cabeçalho: "CDGB", versão (short), quantidade (long), posição do dicionário (long)
+//   registros: dia epoch (int), centavos (long), id do tipo (varint), id da categoria (varint),
+//              tamanho da descrição (varint) + descrição em UTF-8
+//   dicionário: quantidade (int) e, para cada id, tamanho (short) + texto em UTF-8
+// O dicionário vai no final para que o arquivo possa ser gravado sem conhecer os dados antes.
+public class EscritorBinario implements EscritorDeTransacoes {
+    static final int MAGICO = 0x43444742; // "CDGB"
+    static final short VERSAO = 1;
+    static final int TAMANHO_CABECALHO = 4 + 2 + 8 + 8;
+
+    private final FileChannel canal;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> dicionario = new ArrayList<>();
+    private long quantidade;
+
+    public EscritorBinario(Path arquivo) throws IOException {
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        // Cabeçalho provisório; quantidade e dicionário são preenchidos no close()
+        buffer.putInt(MAGICO).putShort(VERSAO).putLong(0).putLong(0);
+    }
+
+    @Override
+    public void escrever(Transacao t) throws IOException {
+        byte[] descricao = t.getDescricao().getBytes(StandardCharsets.UTF_8);
+        garantirEspaco(4 + 8 + 5 + 5 + 5 + descricao.length);
+
+        buffer.putInt((int) t.getData().toEpochDay());
+        buffer.putLong(t.getValorCentavos());
+        putVarint(idNoDicionario(t.getTipo().getNome()));
+        putVarint(idNoDicionario(t.getCategoria()));
+        putVarint(descricao.length);
+        buffer.put(descricao);
+        quantidade++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            long posicaoDicionario = canal.position() + buffer.position();
+            garantirEspaco(4);
+            buffer.putInt(dicionario.size());
+            for (String texto : dicionario) {
+                byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+                garantirEspaco(2 + bytes.length);
+                buffer.putShort((short) bytes.length);
+                buffer.put(bytes);
+            }
+            descarregar();
+
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+            cabecalho.putInt(MAGICO).putShort(VERSAO).putLong(quantidade).putLong(posicaoDicionario).flip();
+            while (cabecalho.hasRemaining()) {
+                canal.write(cabecalho, cabecalho.position());
+            }
+            canal.force(true);
+        } finally {
+            canal.close();
+        }
+    }
+
+    private int idNoDicionario(String texto) {
+        Integer id = ids.get(texto);
+        if (id == null) {
+            id = dicionario.size();
+            ids.put(texto, id);
+            dicionario.add(texto);
+        }
+        return id;
+    }
+
+    private void putVarint(int valor) {
+        while ((valor & ~0x7F) != 0) {
+            buffer.put((byte) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        buffer.put((byte) valor);
+    }
+
+    private void garantirEspaco(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            descarregar();
+            if (buffer.remaining() < bytes) {
+                throw new IOException("Registro grande demais para o formato binário");
+            }
+        }
+    }
+
+    private void descarregar() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+}
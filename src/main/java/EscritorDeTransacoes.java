@@ -0,0 +1,8 @@
+import java.io.Closeable;
+import java.io.IOException;
+
+// Grava transações uma a uma em algum formato de arquivo
+public interface EscritorDeTransacoes extends Closeable {
+
+    void escrever(Transacao t) throws IOException;
+}
@@ -0,0 +1,37 @@
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+// Formato texto original: data;valor;descricao;tipo;categoria
+public class EscritorTexto implements EscritorDeTransacoes {
+    private final FileOutputStream fos;
+    private final BufferedWriter bw;
+
+    public EscritorTexto(Path arquivo) throws IOException {
+        this.fos = new FileOutputStream(arquivo.toFile());
+        this.bw = new BufferedWriter(new OutputStreamWriter(fos, StandardCharsets.UTF_8));
+    }
+
+    public static String linha(Transacao t) {
+        return t.getData() + ";" + Dinheiro.paraArquivo(t.getValorCentavos()) + ";" + t.getDescricao() + ";" + t.getTipo().getNome() + ";" + t.getCategoria();
+    }
+
+    @Override
+    public void escrever(Transacao t) throws IOException {
+        bw.write(linha(t));
+        bw.newLine();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            bw.flush();
+            fos.getFD().sync();
+        } finally {
+            bw.close();
+        }
+    }
+}
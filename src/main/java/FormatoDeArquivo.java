@@ -0,0 +1,14 @@
+public enum FormatoDeArquivo {
+    TEXTO("transações.txt"),
+    BINARIO("transações.bin");
+
+    private final String nomeArquivo;
+
+    FormatoDeArquivo(String nomeArquivo) {
+        this.nomeArquivo = nomeArquivo;
+    }
+
+    public String getNomeArquivo() {
+        return nomeArquivo;
+    }
+}
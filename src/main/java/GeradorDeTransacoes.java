@@ -0,0 +1,186 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+// Gera livros-caixa sintéticos para testes de carga. Cada transação é escrita assim que
+// é criada, então a memória usada não depende da quantidade de linhas. Uso:
+//   java -cp target/classes GeradorDeTransacoes --linhas=100000000 --formato=binario
+// Opções: --linhas, --formato (texto|binario), --saida, --inicio e --fim (AAAA-MM-DD),
+// --receitas (fração de 0 a 1), --categorias e --categorias-receita (Nome:peso,...), --semente
+public class GeradorDeTransacoes {
+    private static final Map<String, String[]> DESCRICOES = Map.of(
+            "Alimentação", new String[]{"Mercado", "Padaria", "Restaurante", "Açougue", "Feira", "Lanchonete"},
+            "Transporte", new String[]{"Uber", "Posto de gasolina", "Ônibus", "Metrô", "Estacionamento"},
+            "Lazer", new String[]{"Cinema", "Streaming", "Show", "Viagem", "Livraria"},
+            "Saúde", new String[]{"Farmácia", "Consulta", "Plano de saúde", "Academia"},
+            "Educação", new String[]{"Mensalidade", "Curso online", "Material escolar"},
+            "Salário", new String[]{"Salário", "Adiantamento", "13º salário"},
+            "Outros", new String[]{"Presente", "Freelance", "Reembolso", "Diversos"});
+
+    private final long linhas;
+    private final LocalDate inicio;
+    private final LocalDate fim;
+    private final double fracaoReceitas;
+    private final Sorteio categoriasDespesa;
+    private final Sorteio categoriasReceita;
+    private final long semente;
+
+    public GeradorDeTransacoes(long linhas, LocalDate inicio, LocalDate fim, double fracaoReceitas,
+                               Map<String, Integer> categoriasDespesa, Map<String, Integer> categoriasReceita,
+                               long semente) {
+        if (linhas < 0 || fim.isBefore(inicio) || fracaoReceitas < 0 || fracaoReceitas > 1) {
+            throw new IllegalArgumentException("Parâmetros de geração inválidos");
+        }
+        this.linhas = linhas;
+        this.inicio = inicio;
+        this.fim = fim;
+        this.fracaoReceitas = fracaoReceitas;
+        this.categoriasDespesa = new Sorteio(categoriasDespesa);
+        this.categoriasReceita = new Sorteio(categoriasReceita);
+        this.semente = semente;
+    }
+
+    // Valores padrão: últimos três anos, um quinto de receitas
+    public GeradorDeTransacoes(long linhas, long semente) {
+        this(linhas, LocalDate.now().minusYears(3), LocalDate.now(), 0.2,
+                pesos("Alimentação:35,Transporte:20,Lazer:15,Saúde:10,Educação:10,Outros:10"),
+                pesos("Salário:8,Outros:2"), semente);
+    }
+
+    // Entrega as transações em ordem de data, como um livro-caixa real vai crescendo.
+    // Mesma semente, mesmas transações.
+    public void gerar(Consumer<Transacao> destino) {
+        Random aleatorio = new Random(semente);
+        long primeiroDia = inicio.toEpochDay();
+        long dias = fim.toEpochDay() - primeiroDia + 1;
+        LocalDate data = null;
+        long diaAtual = Long.MIN_VALUE;
+
+        for (long i = 0; i < linhas; i++) {
+            long dia = primeiroDia + (long) ((double) i / linhas * dias);
+            if (dia != diaAtual) {
+                diaAtual = dia;
+                data = LocalDate.ofEpochDay(dia);
+            }
+
+            boolean receita = aleatorio.nextDouble() < fracaoReceitas;
+            String categoria = (receita ? categoriasReceita : categoriasDespesa).sortear(aleatorio);
+            String[] descricoes = DESCRICOES.getOrDefault(categoria, new String[]{categoria});
+            String descricao = descricoes[aleatorio.nextInt(descricoes.length)];
+
+            // Distribuição log-uniforme: muitos valores pequenos, poucos grandes
+            long valor = receita
+                    ? valorEntre(aleatorio, 100_000, 1_500_000)
+                    : valorEntre(aleatorio, 500, 500_000);
+
+            destino.accept(new Transacao(data, valor, descricao, receita ? Tipo.RECEITA : Tipo.DESPESA, categoria));
+        }
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> opcoes = new LinkedHashMap<>();
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            if (!arg.startsWith("--") || igual < 0) {
+                System.out.println("Opção inválida: " + arg);
+                return;
+            }
+            opcoes.put(arg.substring(2, igual), arg.substring(igual + 1));
+        }
+
+        GeradorDeTransacoes gerador;
+        FormatoDeArquivo formato;
+        Path saida;
+        try {
+            formato = FormatoDeArquivo.valueOf(opcoes.getOrDefault("formato", "texto").toUpperCase(Locale.ROOT));
+            saida = opcoes.containsKey("saida")
+                    ? Path.of(opcoes.get("saida"))
+                    : GerenciadorDeArquivos.caminho(formato.getNomeArquivo());
+            gerador = new GeradorDeTransacoes(
+                    Long.parseLong(opcoes.getOrDefault("linhas", "1000000")),
+                    LocalDate.parse(opcoes.getOrDefault("inicio", LocalDate.now().minusYears(3).toString())),
+                    LocalDate.parse(opcoes.getOrDefault("fim", LocalDate.now().toString())),
+                    Double.parseDouble(opcoes.getOrDefault("receitas", "0.2")),
+                    pesos(opcoes.getOrDefault("categorias", "Alimentação:35,Transporte:20,Lazer:15,Saúde:10,Educação:10,Outros:10")),
+                    pesos(opcoes.getOrDefault("categorias-receita", "Salário:8,Outros:2")),
+                    Long.parseLong(opcoes.getOrDefault("semente", "42")));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.out.println("Parâmetro inválido: " + e.getMessage());
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        long[] escritas = {0};
+        try (EscritorDeTransacoes escritor = GerenciadorDeArquivos.abrirEscritor(formato, saida)) {
+            gerador.gerar(t -> {
+                try {
+                    escritor.escrever(t);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (++escritas[0] % 10_000_000 == 0) {
+                    System.out.println(escritas[0] + " transações geradas...");
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Erro ao gravar " + saida + ": " + e.getMessage());
+            return;
+        }
+        System.out.printf("%d transação(ões) gravada(s) em %s (%.1f s)%n",
+                escritas[0], saida, (System.nanoTime() - inicio) / 1e9);
+    }
+
+    // "Alimentação:35,Lazer:15" -> {Alimentação=35, Lazer=15}
+    static Map<String, Integer> pesos(String texto) {
+        Map<String, Integer> pesos = new LinkedHashMap<>();
+        for (String parte : texto.split(",")) {
+            int separador = parte.lastIndexOf(':');
+            String nome = separador < 0 ? parte.trim() : parte.substring(0, separador).trim();
+            int peso = separador < 0 ? 1 : Integer.parseInt(parte.substring(separador + 1).trim());
+            if (nome.isEmpty() || peso < 0) {
+                throw new IllegalArgumentException("Categoria inválida: " + parte);
+            }
+            pesos.put(nome, peso);
+        }
+        return pesos;
+    }
+
+    private static long valorEntre(Random aleatorio, long minimo, long maximo) {
+        return Math.round(Math.exp(Math.log(minimo) + aleatorio.nextDouble() * (Math.log(maximo) - Math.log(minimo))));
+    }
+
+    // Sorteio ponderado por pesos acumulados
+    private static class Sorteio {
+        private final String[] nomes;
+        private final int[] acumulados;
+
+        Sorteio(Map<String, Integer> pesos) {
+            nomes = pesos.keySet().toArray(new String[0]);
+            acumulados = new int[nomes.length];
+            int soma = 0;
+            for (int i = 0; i < nomes.length; i++) {
+                soma += pesos.get(nomes[i]);
+                acumulados[i] = soma;
+            }
+            if (soma <= 0) {
+                throw new IllegalArgumentException("Informe ao menos uma categoria com peso");
+            }
+        }
+
+        String sortear(Random aleatorio) {
+            int sorteado = aleatorio.nextInt(acumulados[acumulados.length - 1]);
+            int i = 0;
+            while (acumulados[i] <= sorteado) {
+                i++;
+            }
+            return nomes[i];
+        }
+    }
+}
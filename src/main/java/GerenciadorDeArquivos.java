@@ -1,23 +1,75 @@
 import java.io.*;
-import java.time.LocalDate;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.Supplier;
 
 public class GerenciadorDeArquivos {
-    private static final String NOME_ARQUIVO = "transações.txt";
+    private static final long TAMANHO_MINIMO_PARTE = 4 << 20;
 
-    public static void salvar(ArrayList<Transacao> transacoes){
-        try{
-            FileWriter fw = new FileWriter(NOME_ARQUIVO);
-            BufferedWriter bw = new BufferedWriter(fw);
+    private static final String ARQUIVO_RESUMOS = "transações.resumos";
+    private static final String CABECALHO_RESUMOS = "#resumos;";
 
-            for(Transacao t :  transacoes){
-                String linha = t.getData() + ";" + t.getValor() + ";" + t.getDescricao() + ";" + t.getTipo() + ";" + t.getCategoria();
+    // -Dcalculadora.formato=binario troca o arquivo usado por salvar() e carregar()
+    private static FormatoDeArquivo formato =
+            FormatoDeArquivo.valueOf(System.getProperty("calculadora.formato", "texto").toUpperCase(Locale.ROOT));
 
-                bw.write(linha);
-                bw.newLine();
-            }
+    // Com o diário ativo cada alteração é anexada em transações.diario em vez de
+    // regravar o arquivo inteiro; -Dcalculadora.diario=true liga
+    private static boolean diarioAtivo = Boolean.getBoolean("calculadora.diario");
+
+    // Pasta dos arquivos de dados; -Dcalculadora.diretorio troca (padrão: pasta atual)
+    private static Path diretorio = Path.of(System.getProperty("calculadora.diretorio", ""));
+
+    // -Dcalculadora.particionado=true grava um arquivo por ano (LivroParticionado) e carrega só
+    // os anos recentes; com o manifesto já criado, vale mesmo sem a propriedade
+    private static boolean particionado = Boolean.getBoolean("calculadora.particionado");
+
+    // Anos (contando o atual) carregados na abertura do livro particionado
+    private static int anosRecentes = Integer.getInteger("calculadora.anos.recentes", 2);
+
+    // Arquivos grandes são lidos em paralelo; -Dcalculadora.carregamento.sequencial=true desliga
+    private static boolean carregamentoParalelo = !Boolean.getBoolean("calculadora.carregamento.sequencial");
+
+    public static void salvar(List<Transacao> transacoes){
+        salvar(transacoes, null);
+    }
+
+    // mesesAlterados: meses com transações incluídas, removidas ou editadas desde que o
+    // arquivo foi lido (null = não se sabe); só eles são somados de novo nos resumos mensais
+    public static void salvar(List<Transacao> transacoes, Collection<YearMonth> mesesAlterados){
+        salvar(transacoes, mesesAlterados, null);
+    }
+
+    // anosNaoCarregados: com o livro particionado, os anos que ficaram só no disco
+    // (Calculadora.getAnosNaoCarregados); null = não se sabe
+    public static void salvar(List<Transacao> transacoes, Collection<YearMonth> mesesAlterados, Set<Integer> anosNaoCarregados){
+        try{
+            salvarAtomicamente(transacoes, mesesAlterados, anosNaoCarregados);
 
-            bw.close();
             if (!transacoes.isEmpty()) {
                 System.out.println(transacoes.size() + " transação(ões) carregada(s)!");
             } else {
@@ -30,46 +82,659 @@ public class GerenciadorDeArquivos {
         }
     }
 
-    public static ArrayList<Transacao> carregar(){
-        ArrayList<Transacao> transacoes = new ArrayList<>();
+    // Grava tudo num arquivo temporário e só então troca pelo arquivo de verdade,
+    // assim uma queda no meio do salvamento nunca deixa o arquivo pela metade
+    static void salvarAtomicamente(List<Transacao> transacoes) throws IOException {
+        salvarAtomicamente(transacoes, null);
+    }
+
+    // Os resumos mensais são atualizados na mesma passada: os meses não alterados vêm do
+    // arquivo de resumos atual (se ele for deste snapshot), os alterados são somados de novo
+    static void salvarAtomicamente(List<Transacao> transacoes, Collection<YearMonth> mesesAlterados) throws IOException {
+        salvarAtomicamente(transacoes, mesesAlterados, null);
+    }
+
+    static void salvarAtomicamente(List<Transacao> transacoes, Collection<YearMonth> mesesAlterados,
+                                   Set<Integer> anosNaoCarregados) throws IOException {
+        if(isParticionado()){
+            salvarParticionado(transacoes, mesesAlterados, anosNaoCarregados);
+            return;
+        }
+        Path arquivo = caminho(formato.getNomeArquivo());
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+
+        ResumosMensais resumos = mesesAlterados == null ? null : carregarResumos();
+        Collection<YearMonth> somar = null;
+        if(resumos == null){
+            resumos = new ResumosMensais();
+        }else{
+            resumos.descartar(mesesAlterados);
+            somar = mesesAlterados;
+        }
+
+        try(EscritorDeTransacoes escritor = abrirEscritor(formato, temporario)){
+            for(Transacao t : transacoes){
+                escritor.escrever(t);
+                resumos.registrar(t, somar);
+            }
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
 
+        // Se falhar, o arquivo de resumos antigo fica com a identificação do snapshot
+        // anterior e é ignorado por carregarResumos()
         try{
-            FileReader fr = new FileReader(NOME_ARQUIVO);
-            BufferedReader br = new BufferedReader(fr);
+            gravarResumos(resumos);
+        }catch (IOException e){
+            System.out.println("Erro ao salvar os resumos mensais: " + e.getMessage());
+        }
+    }
+
+    // Particionado: regrava só os arquivos dos anos alterados (sem mesesAlterados, os dos anos
+    // presentes na lista), cada um com um nome novo, e por último o manifesto, o único ponto
+    // de troca: até ele, o snapshot anterior continua inteiro, e os arquivos que ele deixou de
+    // listar só são apagados depois. Os anos não carregados ficam como estão no disco. Um ano
+    // do manifesto que não está na lista nem entre os não carregados teve todas as transações
+    // removidas e sai do livro. Sem anosNaoCarregados não dá para separar os dois casos, então
+    // só saem os anos alterados que ficaram vazios.
+    private static void salvarParticionado(List<Transacao> transacoes, Collection<YearMonth> mesesAlterados,
+                                           Set<Integer> anosNaoCarregados) throws IOException {
+        LivroParticionado livro = particoes();
+        Set<Integer> anosAlterados = new HashSet<>();
+        if(mesesAlterados != null){
+            for(YearMonth mes : mesesAlterados){
+                anosAlterados.add(mes.getYear());
+            }
+        }
+
+        ResumosMensais resumos = mesesAlterados == null ? null : carregarResumos();
+        Collection<YearMonth> somar = null;
+        if(resumos == null){
+            resumos = new ResumosMensais();
+        }else{
+            resumos.descartar(mesesAlterados);
+            somar = mesesAlterados;
+        }
 
-            String linha;
+        Set<Integer> anosNaLista = new HashSet<>();
+        GravacaoPorAno gravacao = new GravacaoPorAno();
+        try(gravacao){
+            // Transações seguidas costumam ser do mesmo ano: só confere os conjuntos quando ele muda
+            int ultimoAno = Integer.MIN_VALUE;
+            boolean regravar = false;
+            for(Transacao t : transacoes){
+                int ano = t.getData().getYear();
+                if(ano != ultimoAno){
+                    ultimoAno = ano;
+                    anosNaLista.add(ano);
+                    regravar = mesesAlterados == null || anosAlterados.contains(ano);
+                }
+                if(regravar){
+                    gravacao.escrever(ano, t);
+                }
+                resumos.registrar(t, somar);
+            }
+        }
+        gravacao.publicar(livro);
+
+        Set<Integer> vazios = new HashSet<>(anosNaoCarregados != null ? livro.getAnos() : anosAlterados);
+        vazios.removeAll(anosNaLista);
+        if(anosNaoCarregados != null){
+            vazios.removeAll(anosNaoCarregados);
+        }
+        for(int ano : vazios){
+            livro.remover(ano);
+        }
+        if(somar == null){
+            // Resumos refeitos: os anos que só estão no disco são lidos de lá
+            for(int ano : livro.getAnos()){
+                if(!anosNaLista.contains(ano)){
+                    ResumosMensais destino = resumos;
+                    livro.ler(ano, t -> destino.registrar(t, null));
+                }
+            }
+        }
 
-            while((linha = br.readLine()) != null) {
+        livro.escrever();
+        apagarNaoListados(livro);
+        try{
+            gravarResumos(resumos);
+        }catch (IOException e){
+            System.out.println("Erro ao salvar os resumos mensais: " + e.getMessage());
+        }
+    }
 
-                String[] partes = linha.split(";");
+    // Manifesto atual do livro particionado; na primeira vez divide o arquivo único
+    // (se existir) em um arquivo por ano
+    static LivroParticionado particoes() throws IOException {
+        LivroParticionado livro = LivroParticionado.ler();
+        return livro != null ? livro : particionar();
+    }
 
-                LocalDate data = LocalDate.parse(partes[0]);
-                double valor = Double.parseDouble(partes[1]);
-                String descricao = partes[2];
-                String tipo = partes[3];
-                String categoria = partes[4];
+    // Para Calculadora.usarParticoes; null se o livro não é particionado
+    public static LivroParticionado abrirParticoes(){
+        if(!isParticionado()){
+            return null;
+        }
+        try{
+            return particoes();
+        }catch (IOException e){
+            System.out.println("Erro ao ler o manifesto: " + e.getMessage());
+            return null;
+        }
+    }
 
-                Transacao t = new Transacao(data, valor, descricao, tipo, categoria);
-                transacoes.add(t);
+    private static LivroParticionado particionar() throws IOException {
+        LivroParticionado livro = new LivroParticionado();
+        Files.createDirectories(LivroParticionado.pasta());
+        FormatoDeArquivo origem = formatoParaLeitura();
+        Path arquivoUnico = caminho(origem.getNomeArquivo());
+        if(Files.exists(arquivoUnico)){
+            GravacaoPorAno gravacao = new GravacaoPorAno();
+            try(gravacao; FileChannel canal = FileChannel.open(arquivoUnico, StandardOpenOption.READ)){
+                ler(canal, origem, t -> {
+                    try{
+                        gravacao.escrever(t.getData().getYear(), t);
+                    }catch (IOException e){
+                        throw new UncheckedIOException(e);
+                    }
+                }, p -> {});
+            }catch (UncheckedIOException e){
+                throw e.getCause();
             }
+            gravacao.publicar(livro);
+            System.out.println(arquivoUnico.getFileName() + " dividido em " + livro.getAnos().size()
+                    + " arquivo(s) por ano em " + LivroParticionado.PASTA + "; ele não é mais usado.");
+        }
+        livro.escrever();
+        return livro;
+    }
+
+    // O salvamento já valeu com o manifesto; um arquivo que sobrou é apagado no próximo
+    private static void apagarNaoListados(LivroParticionado livro){
+        try{
+            livro.apagarNaoListados();
+        }catch (IOException e){
+            System.out.println("Erro ao apagar arquivos antigos do livro particionado: " + e.getMessage());
+        }
+    }
+
+    // Resumos mensais gravados junto com o arquivo atual; null se não existem ou se
+    // o arquivo de transações foi trocado depois deles (sem contar o diário)
+    public static ResumosMensais carregarResumos(){
+        try(BufferedReader leitor = Files.newBufferedReader(caminho(ARQUIVO_RESUMOS))){
+            String cabecalho = leitor.readLine();
+            if(cabecalho == null || !cabecalho.equals(CABECALHO_RESUMOS + identificarArquivo())){
+                return null;
+            }
+            return ResumosMensais.ler(leitor);
+        }catch (NoSuchFileException e){
+            return null;
+        }catch (IOException e){
+            System.out.println("Erro ao ler os resumos mensais: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void gravarResumos(ResumosMensais resumos) throws IOException {
+        Path arquivo = caminho(ARQUIVO_RESUMOS);
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try(BufferedWriter escritor = Files.newBufferedWriter(temporario)){
+            escritor.write(CABECALHO_RESUMOS + identificarArquivo() + "\n");
+            resumos.escrever(escritor);
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static EscritorDeTransacoes abrirEscritor(FormatoDeArquivo formato, Path arquivo) throws IOException {
+        if(formato == FormatoDeArquivo.BINARIO){
+            return new EscritorBinario(arquivo);
+        }
+        return new EscritorTexto(arquivo);
+    }
+
+    // Regrava o arquivo de um formato no outro, uma transação por vez
+    public static long converter(FormatoDeArquivo origem, FormatoDeArquivo destino){
+        long quantidade = 0;
+
+        try(FileChannel canal = FileChannel.open(caminho(origem.getNomeArquivo()), StandardOpenOption.READ);
+            EscritorDeTransacoes escritor = abrirEscritor(destino, caminho(destino.getNomeArquivo()))){
+            quantidade = ler(canal, origem, t -> {
+                try{
+                    escritor.escrever(t);
+                }catch (IOException e){
+                    throw new UncheckedIOException(e);
+                }
+            }, p -> {});
+            System.out.println(quantidade + " transação(ões) convertida(s) para " + destino.getNomeArquivo());
+
+        }catch (NoSuchFileException e){
+            System.out.println("Arquivo " + origem.getNomeArquivo() + " não encontrado.");
+        }catch (IOException | UncheckedIOException e){
+            System.out.println("Erro ao converter: " + e.getMessage());
+        }
+
+        return quantidade;
+    }
+
+    public static ArrayList<Transacao> carregar(){
+        return carregarEm(new ArrayList<>());
+    }
+
+    // Carrega o arquivo (e o diário, se ativo) na lista informada, por exemplo um ArmazemColunar
+    public static <L extends List<Transacao>> L carregarEm(L transacoes){
+        carregar(transacoes::add);
+        if(isDiarioAtivo()){
+            Diario.reaplicar(transacoes);
+        }
+        return transacoes;
+    }
 
-            br.close();
-            if(!transacoes.isEmpty()){
+    // Entrega as transações uma a uma, conforme são lidas do arquivo (sempre na ordem do arquivo)
+    public static long carregar(Consumer<Transacao> destino){
+        return carregar(destino, p -> {});
+    }
+
+    // Igual ao anterior, informando a fração já lida (0 a 1) para barras de progresso
+    public static long carregar(Consumer<Transacao> destino, DoubleConsumer progresso){
+        if(isParticionado()){
+            return carregarAnosRecentes(destino, progresso);
+        }
+        long quantidade = 0;
+        FormatoDeArquivo origem = formatoParaLeitura();
+
+        try(FileChannel canal = FileChannel.open(caminho(origem.getNomeArquivo()), StandardOpenOption.READ)){
+            quantidade = ler(canal, origem, destino, progresso);
+            progresso.accept(1);
+            if(quantidade > 0){
                 System.out.println("Dados carregados com sucesso!");
             }
 
-        }catch (FileNotFoundException e){
+        }catch (NoSuchFileException e){
             System.out.println("Nenhum arquivo encontrado. Começando do zero.");
-        }catch (IOException e){
+        }catch (IOException | UncheckedIOException e){
             System.out.println("Erro ao carregar: " + e.getMessage());
         }
 
-        return transacoes;
+        return quantidade;
+    }
+
+    // Particionado: só os anos recentes; os outros ficam para Calculadora.carregarAno
+    private static long carregarAnosRecentes(Consumer<Transacao> destino, DoubleConsumer progresso){
+        long quantidade = 0;
+        try{
+            LivroParticionado livro = particoes();
+            SortedSet<Integer> anos = livro.getAnosRecentes();
+            double esperadas = Math.max(1, livro.getQuantidade(anos));
+            for(int ano : anos){
+                long lidasAntes = quantidade;
+                int doAno = livro.getQuantidade(ano);
+                quantidade += lerArquivo(LivroParticionado.caminhoDoArquivo(livro.getArquivo(ano)), destino,
+                        p -> progresso.accept(Math.min(1, (lidasAntes + p * doAno) / esperadas)));
+            }
+            progresso.accept(1);
+            if(quantidade > 0){
+                System.out.println("Dados carregados com sucesso!");
+            }
+            SortedSet<Integer> antigos = livro.getAnosAntigos();
+            if(!antigos.isEmpty()){
+                System.out.println(livro.getQuantidade(antigos) + " transação(ões) de " + antigos.first() + " a "
+                        + antigos.last() + " ficam no disco até serem usadas.");
+            }
+
+        }catch (NoSuchFileException e){
+            System.out.println("Arquivo do livro particionado não encontrado: " + e.getMessage());
+        }catch (IOException | UncheckedIOException e){
+            System.out.println("Erro ao carregar: " + e.getMessage());
+        }
+        return quantidade;
+    }
+
+    // Lê um arquivo de transações no formato indicado pela extensão
+    static long lerArquivo(Path arquivo, Consumer<Transacao> destino, DoubleConsumer progresso) throws IOException {
+        try(FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)){
+            return ler(canal, formatoDoArquivo(arquivo.getFileName().toString()), destino, progresso);
+        }
     }
 
+    // Passa pelo arquivo uma vez sem guardar as transações, para relatórios sobre arquivos
+    // maiores que a memória. No texto, cada parte lida em paralelo soma no próprio
+    // acumulador e os acumuladores são juntados no fim, na ordem do arquivo.
+    // Particionado, passa pelos arquivos de todos os anos, em ordem.
+    public static <A> A agregar(Supplier<A> novo, BiConsumer<A, Transacao> acumular, BinaryOperator<A> juntar){
+        try{
+            if(isParticionado()){
+                LivroParticionado livro = particoes();
+                A total = novo.get();
+                for(int ano : livro.getAnos()){
+                    Path arquivo = LivroParticionado.caminhoDoArquivo(livro.getArquivo(ano));
+                    total = juntar.apply(total, agregarArquivo(arquivo, formatoDoArquivo(arquivo.getFileName().toString()),
+                            novo, acumular, juntar));
+                }
+                return total;
+            }
+            FormatoDeArquivo origem = formatoParaLeitura();
+            return agregarArquivo(caminho(origem.getNomeArquivo()), origem, novo, acumular, juntar);
 
+        }catch (NoSuchFileException e){
+            System.out.println("Nenhum arquivo encontrado.");
+        }catch (IOException | UncheckedIOException e){
+            System.out.println("Erro ao ler: " + e.getMessage());
+        }
+        return novo.get();
+    }
 
+    private static <A> A agregarArquivo(Path arquivo, FormatoDeArquivo origem, Supplier<A> novo,
+                                        BiConsumer<A, Transacao> acumular, BinaryOperator<A> juntar) throws IOException {
+        try(FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)){
+            long tamanho = canal.size();
+            int partes = origem == FormatoDeArquivo.TEXTO ? quantidadeDePartes(tamanho) : 1;
+            if(partes <= 1){
+                A acumulador = novo.get();
+                ler(canal, origem, t -> acumular.accept(acumulador, t), p -> {});
+                return acumulador;
+            }
 
+            long[] inicios = dividirEmPartes(canal, tamanho, partes);
+            List<AgregacaoDeParte<A>> agregacoes = new ArrayList<>();
+            for(int i = 0; i < partes; i++){
+                if(inicios[i] < inicios[i + 1]){
+                    agregacoes.add(new AgregacaoDeParte<>(canal, inicios[i], inicios[i + 1], novo, acumular));
+                }
+            }
+            agregacoes.forEach(ForkJoinTask::fork);
 
+            A total = novo.get();
+            long linhasInvalidas = 0;
+            for(AgregacaoDeParte<A> agregacao : agregacoes){
+                total = juntar.apply(total, agregacao.join());
+                linhasInvalidas += agregacao.linhasInvalidas;
+            }
+            if(linhasInvalidas > 0){
+                System.out.println(linhasInvalidas + " linha(s) inválida(s) ignorada(s).");
+            }
+            return total;
+        }
+    }
+
+    // Ao trocar para o binário, o texto antigo ainda é lido até o primeiro salvamento
+    private static FormatoDeArquivo formatoParaLeitura(){
+        if(!Files.exists(caminho(formato.getNomeArquivo())) && Files.exists(caminho(FormatoDeArquivo.TEXTO.getNomeArquivo()))){
+            return FormatoDeArquivo.TEXTO;
+        }
+        return formato;
+    }
+
+    // Extensão dos arquivos de um formato (".txt", ".bin")
+    private static String extensao(FormatoDeArquivo formatoDoArquivo){
+        String nome = formatoDoArquivo.getNomeArquivo();
+        return nome.substring(nome.lastIndexOf('.'));
+    }
+
+    private static FormatoDeArquivo formatoDoArquivo(String nome){
+        return nome.endsWith(extensao(FormatoDeArquivo.BINARIO)) ? FormatoDeArquivo.BINARIO : FormatoDeArquivo.TEXTO;
+    }
+
+    private static int quantidadeDePartes(long tamanho){
+        return carregamentoParalelo
+                ? (int) Math.min(ForkJoinPool.getCommonPoolParallelism() * 4L, tamanho / TAMANHO_MINIMO_PARTE)
+                : 1;
+    }
+
+    private static long ler(FileChannel canal, FormatoDeArquivo origem, Consumer<Transacao> destino,
+                            DoubleConsumer progresso) throws IOException {
+        if(origem == FormatoDeArquivo.BINARIO){
+            return new LeitorBinario().ler(canal, destino, progresso);
+        }
+
+        long quantidade = 0;
+        long tamanho = canal.size();
+        int partes = quantidadeDePartes(tamanho);
+
+        long linhasInvalidas;
+        if(partes > 1){
+            long[] inicios = dividirEmPartes(canal, tamanho, partes);
+            List<LeituraDeParte> leituras = new ArrayList<>();
+            for(int i = 0; i < partes; i++){
+                if(inicios[i] < inicios[i + 1]){
+                    leituras.add(new LeituraDeParte(canal, inicios[i], inicios[i + 1]));
+                }
+            }
+            leituras.forEach(ForkJoinTask::fork);
+
+            // join na ordem das partes mantém a ordem original das linhas
+            linhasInvalidas = 0;
+            for(LeituraDeParte leitura : leituras){
+                ArrayList<Transacao> lidas = leitura.join();
+                lidas.forEach(destino);
+                quantidade += lidas.size();
+                linhasInvalidas += leitura.linhasInvalidas;
+                progresso.accept((double) leitura.fim / tamanho);
+            }
+        }else{
+            LeitorDeTransacoes leitor = new LeitorDeTransacoes();
+            quantidade = leitor.ler(canal, 0, Long.MAX_VALUE, destino);
+            linhasInvalidas = leitor.getLinhasInvalidas();
+        }
+
+        if(linhasInvalidas > 0){
+            System.out.println(linhasInvalidas + " linha(s) inválida(s) ignorada(s).");
+        }
+        return quantidade;
+    }
+
+    // Identifica a versão atual do arquivo salvo (inode, tamanho e data de modificação).
+    // O diário guarda essa identificação para saber a qual snapshot suas operações se aplicam.
+    // Particionado, os arquivos dos anos que o manifesto lista identificam o livro.
+    static String identificarArquivo() throws IOException {
+        if(isParticionado()){
+            LivroParticionado livro = LivroParticionado.ler();
+            return livro == null ? "ausente" : livro.identificar();
+        }
+        Path arquivo = caminho(formato.getNomeArquivo());
+        if(!Files.exists(arquivo)){
+            return "ausente";
+        }
+        BasicFileAttributes atributos = Files.readAttributes(arquivo, BasicFileAttributes.class);
+        return atributos.fileKey() + "|" + atributos.size() + "|" + atributos.lastModifiedTime().toMillis();
+    }
+
+    static Path caminho(String nomeArquivo){
+        return diretorio.resolve(nomeArquivo);
+    }
+
+    public static Path getDiretorio(){
+        return diretorio;
+    }
+
+    public static void setDiretorio(Path novoDiretorio){
+        diretorio = novoDiretorio;
+    }
+
+    // O diário guarda posições na lista inteira; com o livro particionado a lista só tem os
+    // anos carregados, então ele fica desligado (o salvamento regrava só os anos alterados)
+    public static boolean isDiarioAtivo(){
+        return diarioAtivo && !isParticionado();
+    }
+
+    public static void setDiarioAtivo(boolean ativo){
+        diarioAtivo = ativo;
+    }
+
+    public static FormatoDeArquivo getFormato(){
+        return formato;
+    }
+
+    public static void setFormato(FormatoDeArquivo novoFormato){
+        formato = novoFormato;
+    }
+
+    public static boolean isParticionado(){
+        return particionado || Files.exists(LivroParticionado.caminhoDoManifesto());
+    }
+
+    public static void setParticionado(boolean ativo){
+        particionado = ativo;
+    }
+
+    public static int getAnosRecentes(){
+        return anosRecentes;
+    }
+
+    public static void setAnosRecentes(int anos){
+        anosRecentes = Math.max(1, anos);
+    }
+
+    public static boolean isCarregamentoParalelo(){
+        return carregamentoParalelo;
+    }
+
+    public static void setCarregamentoParalelo(boolean ativo){
+        carregamentoParalelo = ativo;
+    }
+
+    // Corta o arquivo em faixas de bytes do mesmo tamanho e empurra cada corte
+    // para o começo da linha seguinte, assim nenhuma linha fica dividida
+    // (partes vazias ficam com início igual ao fim)
+    private static long[] dividirEmPartes(FileChannel canal, long tamanho, int partes) throws IOException {
+        long[] inicios = new long[partes + 1];
+        inicios[partes] = tamanho;
+        for(int i = 1; i < partes; i++){
+            inicios[i] = Math.max(inicios[i - 1], inicioDaLinha(canal, tamanho * i / partes));
+        }
+        return inicios;
+    }
+
+    private static long inicioDaLinha(FileChannel canal, long posicao) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long atual = posicao - 1;
+        while(true){
+            buffer.clear();
+            int n = canal.read(buffer, atual);
+            if(n <= 0){
+                return canal.size();
+            }
+            for(int i = 0; i < n; i++){
+                if(buffer.get(i) == '\n'){
+                    return atual + i + 1;
+                }
+            }
+            atual += n;
+        }
+    }
+
+    // Um arquivo temporário por ano, aberto quando chega a primeira transação daquele ano
+    private static class GravacaoPorAno implements Closeable {
+        private final String extensao = extensao(formato);
+        private final Map<Integer, EscritorDeTransacoes> escritores = new TreeMap<>();
+        private final Map<Integer, int[]> quantidades = new HashMap<>();
+        private int ultimoAno = Integer.MIN_VALUE;
+        private EscritorDeTransacoes ultimoEscritor;
+        private int[] ultimaQuantidade;
+
+        void escrever(int ano, Transacao t) throws IOException {
+            if(ano != ultimoAno){
+                ultimoEscritor = escritores.get(ano);
+                if(ultimoEscritor == null){
+                    Files.createDirectories(LivroParticionado.pasta());
+                    ultimoEscritor = abrirEscritor(formato, temporario(ano));
+                    escritores.put(ano, ultimoEscritor);
+                    quantidades.put(ano, new int[1]);
+                }
+                ultimaQuantidade = quantidades.get(ano);
+                ultimoAno = ano;
+            }
+            ultimoEscritor.escrever(t);
+            ultimaQuantidade[0]++;
+        }
+
+        // Depois do close: dá a cada temporário o próximo nome do seu ano e o registra no livro.
+        // Nenhum arquivo que o manifesto atual lista é tocado; os antigos ficam para depois dele.
+        void publicar(LivroParticionado livro) throws IOException {
+            for(int ano : escritores.keySet()){
+                String arquivo = livro.proximoArquivo(ano, extensao);
+                // Pode existir uma sobra de um salvamento interrompido com o mesmo nome
+                Files.move(temporario(ano), LivroParticionado.caminhoDoArquivo(arquivo),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                livro.definir(ano, arquivo, quantidades.get(ano)[0]);
+            }
+        }
+
+        private Path temporario(int ano){
+            return LivroParticionado.caminhoDoArquivo(ano + extensao + ".tmp");
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException erro = null;
+            for(EscritorDeTransacoes escritor : escritores.values()){
+                try{
+                    escritor.close();
+                }catch (IOException e){
+                    erro = erro == null ? e : erro;
+                }
+            }
+            if(erro != null){
+                throw erro;
+            }
+        }
+    }
+
+    private static class LeituraDeParte extends RecursiveTask<ArrayList<Transacao>> {
+        private static final long serialVersionUID = 1L;
+        private final FileChannel canal;
+        private final long inicio;
+        private final long fim;
+        private long linhasInvalidas;
+
+        LeituraDeParte(FileChannel canal, long inicio, long fim){
+            this.canal = canal;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        protected ArrayList<Transacao> compute(){
+            ArrayList<Transacao> lidas = new ArrayList<>();
+            LeitorDeTransacoes leitor = new LeitorDeTransacoes();
+            try{
+                leitor.ler(canal, inicio, fim, lidas::add);
+            }catch (IOException e){
+                throw new UncheckedIOException(e);
+            }
+            linhasInvalidas = leitor.getLinhasInvalidas();
+            return lidas;
+        }
+    }
+
+    private static class AgregacaoDeParte<A> extends RecursiveTask<A> {
+        private static final long serialVersionUID = 1L;
+        private final FileChannel canal;
+        private final long inicio;
+        private final long fim;
+        private final Supplier<A> novo;
+        private final BiConsumer<A, Transacao> acumular;
+        private long linhasInvalidas;
+
+        AgregacaoDeParte(FileChannel canal, long inicio, long fim, Supplier<A> novo, BiConsumer<A, Transacao> acumular){
+            this.canal = canal;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.novo = novo;
+            this.acumular = acumular;
+        }
+
+        @Override
+        protected A compute(){
+            A acumulador = novo.get();
+            LeitorDeTransacoes leitor = new LeitorDeTransacoes();
+            try{
+                leitor.ler(canal, inicio, fim, t -> acumular.accept(acumulador, t));
+            }catch (IOException e){
+                throw new UncheckedIOException(e);
+            }
+            linhasInvalidas = leitor.getLinhasInvalidas();
+            return acumulador;
+        }
+    }
 
 }
@@ -0,0 +1,318 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+// Importa extratos bancários em CSV ou OFX. Os arquivos são lidos em paralelo e as linhas
+// de cada um são interpretadas em partes, também em paralelo; o resultado vem na ordem dos
+// arquivos e das linhas, pronto para um único Calculadora.adicionarTransacoes. Valores
+// negativos ou marcados com D/DB viram despesa, os outros receita (C/CR também marca
+// crédito); a categoria sai das RegrasDeCategoria.
+//
+// CSV: separador ';', ',' ou tab, detectado no cabeçalho. As colunas de data, descrição e
+// valor são achadas pelo nome (data/date, descrição/histórico/memo, valor/amount); sem
+// cabeçalho reconhecido, são as três primeiras nessa ordem. Datas DD/MM/AAAA ou AAAA-MM-DD.
+// OFX: um <STMTTRN> por transação, com DTPOSTED, TRNAMT e MEMO (ou NAME).
+//
+// Uso sem interface (anexa ao livro-caixa da pasta de dados e salva):
+//   java -cp target/classes ImportadorDeExtratos [--diretorio=pasta] [--formato=texto|binario] extrato.csv extrato.ofx ...
+public class ImportadorDeExtratos {
+    private static final int LINHAS_POR_PARTE = 16_384;
+    private static final DateTimeFormatter DIA_MES_ANO = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter DIA_MES_ANO_TRACO = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final DateTimeFormatter OFX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final Pattern MARCA_DEBITO_CREDITO = Pattern.compile("\\d\\s*(DB?|CR?)\\s*$", Pattern.CASE_INSENSITIVE);
+
+    private final RegrasDeCategoria regras;
+    private final AtomicLong linhasInvalidas = new AtomicLong();
+
+    public ImportadorDeExtratos(RegrasDeCategoria regras) {
+        this.regras = regras;
+    }
+
+    public static void main(String[] args) {
+        List<Path> arquivos = new ArrayList<>();
+        boolean recategorizar = false;
+        for (String arg : args) {
+            if (arg.equals("--recategorizar")) {
+                recategorizar = true;
+            } else if (arg.startsWith("--diretorio=")) {
+                GerenciadorDeArquivos.setDiretorio(Path.of(arg.substring("--diretorio=".length())));
+            } else if (arg.startsWith("--formato=")) {
+                GerenciadorDeArquivos.setFormato(FormatoDeArquivo.valueOf(
+                        arg.substring("--formato=".length()).toUpperCase(Locale.ROOT)));
+            } else {
+                arquivos.add(Path.of(arg));
+            }
+        }
+        if (arquivos.isEmpty() && !recategorizar) {
+            System.out.println("Informe os arquivos de extrato (.csv ou .ofx) e/ou --recategorizar.");
+            return;
+        }
+
+        RegrasDeCategoria regras = RegrasDeCategoria.carregar();
+        ImportadorDeExtratos importador = new ImportadorDeExtratos(regras);
+        List<Transacao> importadas;
+        long inicio = System.nanoTime();
+        try {
+            importadas = importador.importar(arquivos);
+        } catch (IOException e) {
+            System.out.println("Erro ao importar: " + e.getMessage());
+            return;
+        }
+        System.out.printf("%d transação(ões) lida(s) em %.1f s%n", importadas.size(), (System.nanoTime() - inicio) / 1e9);
+        if (importador.getLinhasInvalidas() > 0) {
+            System.out.println(importador.getLinhasInvalidas() + " linha(s) inválida(s) ignorada(s).");
+        }
+
+        Calculadora calculadora = new Calculadora(GerenciadorDeArquivos.carregarEm(Calculadora.novoArmazenamento()));
+        LivroParticionado particoes = GerenciadorDeArquivos.abrirParticoes();
+        if (particoes != null) {
+            calculadora.usarParticoes(particoes);
+        }
+        int repetidas = calculadora.adicionarSemDuplicatas(importadas);
+        if (repetidas > 0) {
+            System.out.println(repetidas + " transação(ões) já existente(s) ignorada(s).");
+        }
+        if (recategorizar) {
+            inicio = System.nanoTime();
+            int alteradas = calculadora.recategorizar(regras);
+            System.out.printf("%d transação(ões) mudaram de categoria em %.1f s%n", alteradas, (System.nanoTime() - inicio) / 1e9);
+        }
+        GerenciadorDeArquivos.salvar(calculadora.getTransacoes(),
+                GerenciadorDeArquivos.isDiarioAtivo() ? null : calculadora.getMesesAlterados(), calculadora.getAnosNaoCarregados());
+    }
+
+    // Linhas que não puderam ser interpretadas desde a criação do importador
+    public long getLinhasInvalidas() {
+        return linhasInvalidas.get();
+    }
+
+    public List<Transacao> importar(List<Path> arquivos) throws IOException {
+        try {
+            List<List<Transacao>> porArquivo = arquivos.parallelStream().map(arquivo -> {
+                try {
+                    return importar(arquivo);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(arquivo + ": " + e.getMessage(), e);
+                }
+            }).toList();
+            return juntar(porArquivo);
+        } catch (UncheckedIOException e) {
+            throw new IOException(e.getMessage(), e.getCause());
+        }
+    }
+
+    public List<Transacao> importar(Path arquivo) throws IOException {
+        String texto = lerTexto(arquivo);
+        String nome = arquivo.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (nome.endsWith(".ofx") || nome.endsWith(".qfx") || texto.contains("<STMTTRN>")) {
+            return lerOfx(texto);
+        }
+        return lerCsv(texto);
+    }
+
+    // Bancos ainda exportam em Latin-1: se o arquivo não for UTF-8 válido, lê como ISO-8859-1
+    private static String lerTexto(Path arquivo) throws IOException {
+        byte[] bytes = Files.readAllBytes(arquivo);
+        try {
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(bytes)).toString();
+        } catch (CharacterCodingException e) {
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    private List<Transacao> lerCsv(String texto) {
+        String[] linhas = texto.split("\r?\n");
+        if (linhas.length == 0) {
+            return List.of();
+        }
+        String cabecalho = linhas[0].startsWith("\uFEFF") ? linhas[0].substring(1) : linhas[0];
+        char separador = separador(cabecalho);
+
+        // Posições de data, descrição e valor; sem cabeçalho reconhecido, as três primeiras colunas
+        int[] colunas = {-1, -1, -1};
+        List<String> nomes = campos(cabecalho, separador);
+        for (int i = 0; i < nomes.size(); i++) {
+            String nome = IndiceDeBusca.normalizar(nomes.get(i).trim());
+            if (colunas[0] < 0 && (nome.contains("data") || nome.contains("date"))) {
+                colunas[0] = i;
+            } else if (colunas[1] < 0 && (nome.contains("descri") || nome.contains("hist")
+                    || nome.contains("memo") || nome.contains("estabelecimento"))) {
+                colunas[1] = i;
+            } else if (colunas[2] < 0 && (nome.contains("valor") || nome.contains("value") || nome.contains("amount"))) {
+                colunas[2] = i;
+            }
+        }
+        int primeira = 1;
+        if (colunas[0] < 0 || colunas[1] < 0 || colunas[2] < 0) {
+            colunas = new int[]{0, 1, 2};
+            primeira = 0;
+        }
+
+        int[] usadas = colunas;
+        int inicio = primeira;
+        int partes = (linhas.length - inicio + LINHAS_POR_PARTE - 1) / LINHAS_POR_PARTE;
+        return juntar(IntStream.range(0, partes).parallel().mapToObj(parte -> {
+            List<Transacao> lidas = new ArrayList<>();
+            int fim = Math.min(linhas.length, inicio + (parte + 1) * LINHAS_POR_PARTE);
+            for (int i = inicio + parte * LINHAS_POR_PARTE; i < fim; i++) {
+                if (linhas[i].isBlank()) {
+                    continue;
+                }
+                List<String> campos = campos(linhas[i], separador);
+                if (campos.size() <= Math.max(usadas[0], Math.max(usadas[1], usadas[2]))) {
+                    linhasInvalidas.incrementAndGet();
+                    continue;
+                }
+                adicionar(lidas, campos.get(usadas[0]), campos.get(usadas[1]), campos.get(usadas[2]));
+            }
+            return lidas;
+        }).toList());
+    }
+
+    private List<Transacao> lerOfx(String texto) {
+        List<Integer> inicios = new ArrayList<>();
+        for (int i = texto.indexOf("<STMTTRN>"); i >= 0; i = texto.indexOf("<STMTTRN>", i + 1)) {
+            inicios.add(i);
+        }
+        inicios.add(texto.length());
+
+        int blocos = inicios.size() - 1;
+        int partes = (blocos + LINHAS_POR_PARTE - 1) / LINHAS_POR_PARTE;
+        return juntar(IntStream.range(0, partes).parallel().mapToObj(parte -> {
+            List<Transacao> lidas = new ArrayList<>();
+            int fim = Math.min(blocos, (parte + 1) * LINHAS_POR_PARTE);
+            for (int b = parte * LINHAS_POR_PARTE; b < fim; b++) {
+                String bloco = texto.substring(inicios.get(b), inicios.get(b + 1));
+                String descricao = valorDaTag(bloco, "MEMO");
+                if (descricao == null || descricao.isEmpty()) {
+                    descricao = valorDaTag(bloco, "NAME");
+                }
+                adicionar(lidas, valorDaTag(bloco, "DTPOSTED"), descricao, valorDaTag(bloco, "TRNAMT"));
+            }
+            return lidas;
+        }).toList());
+    }
+
+    private void adicionar(List<Transacao> destino, String data, String descricao, String valor) {
+        try {
+            long centavos = Dinheiro.converter(valor.replaceAll("[^0-9.,+-]", ""));
+            String texto = descricao == null ? "" : descricao.trim();
+            if (centavos == 0 || texto.isEmpty()) {
+                linhasInvalidas.incrementAndGet();
+                return;
+            }
+            int marcacao = marcacaoDebitoCredito(valor);
+            Tipo tipo = marcacao < 0 || (marcacao == 0 && centavos < 0) ? Tipo.DESPESA : Tipo.RECEITA;
+            LocalDate dia = data(data.trim());
+            destino.add(new Transacao(dia, Math.abs(centavos), texto, tipo, regras.categorizar(texto, Math.abs(centavos), dia)));
+        } catch (RuntimeException e) {
+            linhasInvalidas.incrementAndGet();
+        }
+    }
+
+    // Muitos extratos marcam débito e crédito com letras depois do valor ("150,00 D",
+    // "80,00 CR") em vez do sinal: -1 débito (D, DB), 1 crédito (C, CR), 0 sem marcação.
+    // A marca tem que vir logo depois dos algarismos, para "100.00 USD" e "50,00 CAD" não contarem.
+    private static int marcacaoDebitoCredito(String valor) {
+        Matcher marca = MARCA_DEBITO_CREDITO.matcher(valor);
+        if (!marca.find()) {
+            return 0;
+        }
+        return Character.toUpperCase(marca.group(1).charAt(0)) == 'D' ? -1 : 1;
+    }
+
+    private static LocalDate data(String texto) {
+        if (texto.length() >= 8 && texto.chars().limit(8).allMatch(Character::isDigit)) {
+            return LocalDate.parse(texto.substring(0, 8), OFX);
+        }
+        if (texto.length() >= 10 && texto.charAt(2) == '/') {
+            return LocalDate.parse(texto.substring(0, 10), DIA_MES_ANO);
+        }
+        if (texto.length() >= 10 && texto.charAt(2) == '-') {
+            return LocalDate.parse(texto.substring(0, 10), DIA_MES_ANO_TRACO);
+        }
+        if (texto.length() >= 10) {
+            return LocalDate.parse(texto.substring(0, 10));
+        }
+        throw new DateTimeParseException("Data inválida", texto, 0);
+    }
+
+    // O separador que mais aparece no cabeçalho (fora de aspas não importa aqui)
+    private static char separador(String cabecalho) {
+        char melhor = ';';
+        long maior = -1;
+        for (char candidato : new char[]{';', ',', '\t'}) {
+            long quantidade = cabecalho.chars().filter(c -> c == candidato).count();
+            if (quantidade > maior) {
+                maior = quantidade;
+                melhor = candidato;
+            }
+        }
+        return melhor;
+    }
+
+    // Campos de uma linha CSV; aspas protegem separadores e "" vira uma aspa
+    private static List<String> campos(String linha, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (c == '"') {
+                if (entreAspas && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else {
+                    entreAspas = !entreAspas;
+                }
+            } else if (c == separador && !entreAspas) {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else if (c != '\r') {
+                atual.append(c);
+            }
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+
+    // Conteúdo de <TAG>valor no SGML do OFX (a tag de fechamento é opcional)
+    private static String valorDaTag(String bloco, String tag) {
+        int inicio = bloco.indexOf("<" + tag + ">");
+        if (inicio < 0) {
+            return null;
+        }
+        inicio += tag.length() + 2;
+        int fim = inicio;
+        while (fim < bloco.length() && bloco.charAt(fim) != '<' && bloco.charAt(fim) != '\n' && bloco.charAt(fim) != '\r') {
+            fim++;
+        }
+        return bloco.substring(inicio, fim).trim()
+                .replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&amp;", "&");
+    }
+
+    private static List<Transacao> juntar(List<List<Transacao>> partes) {
+        List<Transacao> todas = new ArrayList<>(partes.stream().mapToInt(List::size).sum());
+        partes.forEach(todas::addAll);
+        return todas;
+    }
+}
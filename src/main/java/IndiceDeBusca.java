@@ -0,0 +1,260 @@
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Índice invertido para a busca por descrição, mantido junto com a Calculadora.
+// Cada descrição distinta é normalizada uma vez (minúsculas, sem acento) e quebrada
+// em trigramas; a busca cruza as listas de trigramas em vez de varrer as linhas.
+// Tipo (ordinal) e categoria (id em Categorias) ficam em colunas por linha para filtrar com comparação de int.
+public class IndiceDeBusca {
+    private static final char[] SEM_ACENTO = new char[0x250];
+
+    static {
+        for (char c = 0; c < SEM_ACENTO.length; c++) {
+            String decomposto = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            SEM_ACENTO[c] = Character.toLowerCase(decomposto.charAt(0));
+        }
+    }
+
+    // Descrições distintas: texto normalizado e linhas em que aparecem
+    private final Map<String, Integer> idPorDescricao = new HashMap<>();
+    private final Map<String, Integer> idPorTextoOriginal = new HashMap<>();
+    private final List<String> descricoes = new ArrayList<>();
+    private final List<ListaDeInteiros> linhasPorDescricao = new ArrayList<>();
+    private final Map<Long, ListaDeInteiros> descricoesPorTrigrama = new HashMap<>();
+
+    // Uma posição por linha da Calculadora, na mesma ordem
+    private final ListaDeInteiros descricaoDaLinha = new ListaDeInteiros(1024);
+    private final ListaDeInteiros tipoDaLinha = new ListaDeInteiros(1024);
+    private final ListaDeInteiros categoriaDaLinha = new ListaDeInteiros(1024);
+
+    // Remoções deslocam as linhas seguintes; as listas de linhas são refeitas na próxima busca
+    private boolean linhasDesatualizadas;
+
+    public static String normalizar(String texto) {
+        char[] saida = new char[texto.length()];
+        boolean outroAlfabeto = false;
+        for (int i = 0; i < saida.length; i++) {
+            char c = texto.charAt(i);
+            if (c < SEM_ACENTO.length) {
+                saida[i] = SEM_ACENTO[c];
+            } else {
+                saida[i] = Character.toLowerCase(c);
+                outroAlfabeto = true;
+            }
+        }
+        String resultado = new String(saida);
+        if (outroAlfabeto) {
+            resultado = Normalizer.normalize(resultado, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        }
+        return resultado;
+    }
+
+    // Devolve o id da descrição normalizada
+    public int adicionar(Transacao t) {
+        int linha = descricaoDaLinha.tamanho();
+        int descricao = idDaDescricao(t.getDescricao());
+        descricaoDaLinha.adicionar(descricao);
+        tipoDaLinha.adicionar(t.getTipo().ordinal());
+        categoriaDaLinha.adicionar(t.getCategoriaId());
+        if (!linhasDesatualizadas) {
+            linhasPorDescricao.get(descricao).adicionar(linha);
+        }
+        return descricao;
+    }
+
+    public void remover(int linha) {
+        descricaoDaLinha.removerEm(linha);
+        tipoDaLinha.removerEm(linha);
+        categoriaDaLinha.removerEm(linha);
+        linhasDesatualizadas = true;
+    }
+
+    public void substituir(int linha, Transacao t) {
+        int descricao = idDaDescricao(t.getDescricao());
+        if (descricao != descricaoDaLinha.obter(linha)) {
+            descricaoDaLinha.definir(linha, descricao);
+            linhasDesatualizadas = true;
+        }
+        tipoDaLinha.definir(linha, t.getTipo().ordinal());
+        categoriaDaLinha.definir(linha, t.getCategoriaId());
+    }
+
+    public int categoriaDa(int linha) {
+        return categoriaDaLinha.obter(linha);
+    }
+
+    public void definirCategoria(int linha, int categoriaId) {
+        categoriaDaLinha.definir(linha, categoriaId);
+    }
+
+    // Linhas (em ordem crescente) cuja descrição contém o texto, sem diferenciar
+    // maiúsculas nem acentos. tipo/categoria null não filtram.
+    public int[] buscar(String texto, Tipo tipo, String categoria) {
+        int tipoId = tipo == null ? -1 : tipo.ordinal();
+        int categoriaId = categoria == null ? -1 : Categorias.procurar(categoria);
+        if (categoria != null && categoriaId < 0) {
+            return new int[0];
+        }
+
+        String consulta = texto == null ? "" : normalizar(texto);
+        if (consulta.isEmpty()) {
+            return filtrarLinhas(null, tipoId, categoriaId);
+        }
+
+        atualizarLinhas();
+        ListaDeInteiros encontradas = descricoesQueContem(consulta);
+        if (encontradas.tamanho() == 0) {
+            return new int[0];
+        }
+
+        int totalLinhas = 0;
+        for (int i = 0; i < encontradas.tamanho(); i++) {
+            totalLinhas += linhasPorDescricao.get(encontradas.obter(i)).tamanho();
+        }
+
+        // Resultado grande: marcar as descrições e passar pelas linhas sai mais barato que ordenar
+        if (totalLinhas > descricaoDaLinha.tamanho() / 8) {
+            boolean[] marcadas = new boolean[descricoes.size()];
+            for (int i = 0; i < encontradas.tamanho(); i++) {
+                marcadas[encontradas.obter(i)] = true;
+            }
+            return filtrarLinhas(marcadas, tipoId, categoriaId);
+        }
+
+        int[] linhas = new int[totalLinhas];
+        int quantidade = 0;
+        for (int i = 0; i < encontradas.tamanho(); i++) {
+            ListaDeInteiros daDescricao = linhasPorDescricao.get(encontradas.obter(i));
+            for (int j = 0; j < daDescricao.tamanho(); j++) {
+                int linha = daDescricao.obter(j);
+                if (aceita(linha, tipoId, categoriaId)) {
+                    linhas[quantidade++] = linha;
+                }
+            }
+        }
+        int[] resultado = Arrays.copyOf(linhas, quantidade);
+        if (encontradas.tamanho() > 1) {
+            Arrays.sort(resultado);
+        }
+        return resultado;
+    }
+
+    private ListaDeInteiros descricoesQueContem(String consulta) {
+        ListaDeInteiros encontradas = new ListaDeInteiros();
+
+        if (consulta.length() < 3) {
+            // Curta demais para trigramas: confere as descrições distintas (não as linhas)
+            for (int id = 0; id < descricoes.size(); id++) {
+                if (descricoes.get(id).contains(consulta)) {
+                    encontradas.adicionar(id);
+                }
+            }
+            return encontradas;
+        }
+
+        // Parte do trigrama mais raro e confirma com contains()
+        ListaDeInteiros menor = null;
+        for (int i = 0; i + 3 <= consulta.length(); i++) {
+            ListaDeInteiros candidatas = descricoesPorTrigrama.get(trigrama(consulta, i));
+            if (candidatas == null) {
+                return encontradas;
+            }
+            if (menor == null || candidatas.tamanho() < menor.tamanho()) {
+                menor = candidatas;
+            }
+        }
+        for (int i = 0; i < menor.tamanho(); i++) {
+            int id = menor.obter(i);
+            if (descricoes.get(id).contains(consulta)) {
+                encontradas.adicionar(id);
+            }
+        }
+        return encontradas;
+    }
+
+    private int[] filtrarLinhas(boolean[] descricoesMarcadas, int tipoId, int categoriaId) {
+        ListaDeInteiros linhas = new ListaDeInteiros(descricaoDaLinha.tamanho());
+        for (int linha = 0; linha < descricaoDaLinha.tamanho(); linha++) {
+            if ((descricoesMarcadas == null || descricoesMarcadas[descricaoDaLinha.obter(linha)])
+                    && aceita(linha, tipoId, categoriaId)) {
+                linhas.adicionar(linha);
+            }
+        }
+        return linhas.paraArray();
+    }
+
+    private boolean aceita(int linha, int tipoId, int categoriaId) {
+        return (tipoId < 0 || tipoDaLinha.obter(linha) == tipoId)
+                && (categoriaId < 0 || categoriaDaLinha.obter(linha) == categoriaId);
+    }
+
+    private void atualizarLinhas() {
+        if (!linhasDesatualizadas) {
+            return;
+        }
+        for (ListaDeInteiros linhas : linhasPorDescricao) {
+            linhas.limpar();
+        }
+        for (int linha = 0; linha < descricaoDaLinha.tamanho(); linha++) {
+            linhasPorDescricao.get(descricaoDaLinha.obter(linha)).adicionar(linha);
+        }
+        linhasDesatualizadas = false;
+    }
+
+    // Id da descrição normalizada da linha; igual para textos que só diferem em maiúsculas e acentos
+    public int descricaoDa(int linha) {
+        return descricaoDaLinha.obter(linha);
+    }
+
+    public int getQuantidadeDeDescricoes() {
+        return descricoes.size();
+    }
+
+    // Texto normalizado da descrição com o id informado
+    public String descricaoNormalizada(int id) {
+        return descricoes.get(id);
+    }
+
+    // Id do texto normalizado, ou -1 se nenhuma descrição igual foi vista
+    public int procurarDescricao(String original) {
+        Integer id = idPorTextoOriginal.get(original);
+        if (id == null) {
+            id = idPorDescricao.get(normalizar(original));
+        }
+        return id == null ? -1 : id;
+    }
+
+    // Id do texto normalizado, registrando-o se ainda não existe (sem ligá-lo a nenhuma linha)
+    public int idDaDescricao(String original) {
+        Integer id = idPorTextoOriginal.get(original);
+        if (id != null) {
+            return id;
+        }
+
+        String normalizada = normalizar(original);
+        id = idPorDescricao.get(normalizada);
+        if (id == null) {
+            id = descricoes.size();
+            idPorDescricao.put(normalizada, id);
+            descricoes.add(normalizada);
+            linhasPorDescricao.add(new ListaDeInteiros(2));
+            for (int i = 0; i + 3 <= normalizada.length(); i++) {
+                ListaDeInteiros ids = descricoesPorTrigrama.computeIfAbsent(trigrama(normalizada, i), k -> new ListaDeInteiros(2));
+                // O mesmo trigrama pode se repetir na descrição
+                if (ids.tamanho() == 0 || ids.obter(ids.tamanho() - 1) != id) {
+                    ids.adicionar(id);
+                }
+            }
+        }
+        idPorTextoOriginal.put(original, id);
+        return id;
+    }
+
+    private static long trigrama(String texto, int inicio) {
+        return ((long) texto.charAt(inicio) << 32) | ((long) texto.charAt(inicio + 1) << 16) | texto.charAt(inicio + 2);
+    }
+}
@@ -0,0 +1,100 @@
+// Conta quantas transações existem com a mesma chave (data, valor em centavos, descrição
+// normalizada), para achar duplicatas em O(1) por inserção. A descrição entra pelo id que o
+// IndiceDeBusca dá ao texto normalizado. Tabela de endereçamento aberto em arrays primitivos:
+// sem objeto por chave, o que importa com milhões de linhas.
+public class IndiceDeDuplicatas {
+    // (dia << 32) | id da descrição; a posição só vale com ocupadas[i] = true
+    private long[] diaEDescricao;
+    private long[] valores;
+    private int[] contagens;
+    private boolean[] ocupadas;
+    private int chaves;
+
+    public IndiceDeDuplicatas() {
+        this(16);
+    }
+
+    public IndiceDeDuplicatas(int capacidadeEsperada) {
+        int capacidade = Integer.highestOneBit(Math.max(16, capacidadeEsperada * 4 / 3) - 1) << 1;
+        diaEDescricao = new long[capacidade];
+        valores = new long[capacidade];
+        contagens = new int[capacidade];
+        ocupadas = new boolean[capacidade];
+    }
+
+    // Quantas transações com a chave já existem
+    public int contar(int dia, long valorCentavos, int descricao) {
+        int posicao = procurar(chave(dia, descricao), valorCentavos);
+        return ocupadas[posicao] ? contagens[posicao] : 0;
+    }
+
+    // Registra mais uma transação com a chave e devolve quantas já existiam antes dela
+    public int adicionar(int dia, long valorCentavos, int descricao) {
+        long chave = chave(dia, descricao);
+        int posicao = procurar(chave, valorCentavos);
+        if (!ocupadas[posicao]) {
+            if ((chaves + 1) * 4L > diaEDescricao.length * 3L) {
+                crescer();
+                posicao = procurar(chave, valorCentavos);
+            }
+            ocupadas[posicao] = true;
+            diaEDescricao[posicao] = chave;
+            valores[posicao] = valorCentavos;
+            chaves++;
+        }
+        return contagens[posicao]++;
+    }
+
+    // Retira uma transação com a chave e devolve quantas existiam antes da remoção.
+    // A chave continua na tabela com contagem zero (sem remoção no endereçamento aberto).
+    public int remover(int dia, long valorCentavos, int descricao) {
+        int posicao = procurar(chave(dia, descricao), valorCentavos);
+        if (!ocupadas[posicao] || contagens[posicao] == 0) {
+            return 0;
+        }
+        return contagens[posicao]--;
+    }
+
+    private int procurar(long chave, long valorCentavos) {
+        int mascara = diaEDescricao.length - 1;
+        int posicao = espalhar(chave, valorCentavos) & mascara;
+        while (ocupadas[posicao] && (diaEDescricao[posicao] != chave || valores[posicao] != valorCentavos)) {
+            posicao = (posicao + 1) & mascara;
+        }
+        return posicao;
+    }
+
+    private void crescer() {
+        long[] antigasChaves = diaEDescricao;
+        long[] antigosValores = valores;
+        int[] antigasContagens = contagens;
+        boolean[] antigasOcupadas = ocupadas;
+
+        int capacidade = antigasChaves.length * 2;
+        diaEDescricao = new long[capacidade];
+        valores = new long[capacidade];
+        contagens = new int[capacidade];
+        ocupadas = new boolean[capacidade];
+        for (int i = 0; i < antigasChaves.length; i++) {
+            if (antigasOcupadas[i]) {
+                int posicao = procurar(antigasChaves[i], antigosValores[i]);
+                ocupadas[posicao] = true;
+                diaEDescricao[posicao] = antigasChaves[i];
+                valores[posicao] = antigosValores[i];
+                contagens[posicao] = antigasContagens[i];
+            }
+        }
+    }
+
+    private static long chave(int dia, int descricao) {
+        return ((long) dia << 32) | (descricao & 0xFFFFFFFFL);
+    }
+
+    private static int espalhar(long chave, long valorCentavos) {
+        long h = chave * 0x9E3779B97F4A7C15L + valorCentavos;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -0,0 +1,69 @@
+import java.util.Arrays;
+
+// Índice por data: o valor líquido (receitas - despesas, em centavos) de cada dia,
+// ordenado por dia epoch, com somas acumuladas. Responde "saldo até o dia D" e
+// "soma entre D1 e D2" com busca binária. Guarda um item por dia distinto, não por
+// transação, então uma década de histórico cabe em alguns milhares de posições.
+public class IndiceTemporal {
+    private int quantidade;
+    private int[] dias = new int[64];
+    private long[] liquido = new long[64];
+    private long[] acumulado = new long[64];
+
+    // acumulado[] só está correto antes desta posição; é refeito sob demanda
+    private int validoAte;
+
+    public void registrar(int dia, long valor) {
+        int posicao = Arrays.binarySearch(dias, 0, quantidade, dia);
+        if (posicao < 0) {
+            posicao = -posicao - 1;
+            if (quantidade == dias.length) {
+                int capacidade = dias.length * 2;
+                dias = Arrays.copyOf(dias, capacidade);
+                liquido = Arrays.copyOf(liquido, capacidade);
+                acumulado = Arrays.copyOf(acumulado, capacidade);
+            }
+            System.arraycopy(dias, posicao, dias, posicao + 1, quantidade - posicao);
+            System.arraycopy(liquido, posicao, liquido, posicao + 1, quantidade - posicao);
+            dias[posicao] = dia;
+            liquido[posicao] = 0;
+            quantidade++;
+        }
+        liquido[posicao] += valor;
+        validoAte = Math.min(validoAte, posicao);
+    }
+
+    // Soma de tudo com data até o dia informado (inclusive)
+    public long saldoAte(int dia) {
+        int posicao = Arrays.binarySearch(dias, 0, quantidade, dia);
+        if (posicao < 0) {
+            // Não há esse dia: usa o último anterior a ele
+            posicao = -posicao - 2;
+        }
+        if (posicao < 0) {
+            return 0;
+        }
+        atualizarAcumulado(posicao);
+        return acumulado[posicao];
+    }
+
+    // Soma de tudo com data entre os dois dias (inclusive)
+    public long somaEntre(int inicio, int fim) {
+        if (fim < inicio) {
+            return 0;
+        }
+        return saldoAte(fim) - saldoAte(inicio - 1);
+    }
+
+    private void atualizarAcumulado(int ate) {
+        if (ate < validoAte) {
+            return;
+        }
+        long soma = validoAte == 0 ? 0 : acumulado[validoAte - 1];
+        for (int i = validoAte; i < quantidade; i++) {
+            soma += liquido[i];
+            acumulado[i] = soma;
+        }
+        validoAte = quantidade;
+    }
+}
@@ -0,0 +1,137 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+
+// Lê o formato gravado pelo EscritorBinario
+public class LeitorBinario {
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+    private final CacheDeTextos descricoes = new CacheDeTextos(16384);
+    private final LocalDate[] datas = new LocalDate[4096];
+    private final int[] diasDatas = new int[4096];
+
+    public long ler(FileChannel canal, Consumer<Transacao> destino) throws IOException {
+        return ler(canal, destino, p -> {});
+    }
+
+    // progresso recebe a fração lida (0 a 1) a cada bloco de registros
+    public long ler(FileChannel canal, Consumer<Transacao> destino, DoubleConsumer progresso) throws IOException {
+        ByteBuffer cabecalho = ByteBuffer.allocate(EscritorBinario.TAMANHO_CABECALHO);
+        lerTudo(canal, cabecalho, 0);
+        cabecalho.flip();
+        if (cabecalho.remaining() < EscritorBinario.TAMANHO_CABECALHO || cabecalho.getInt() != EscritorBinario.MAGICO) {
+            throw new IOException("Arquivo binário inválido");
+        }
+        short versao = cabecalho.getShort();
+        if (versao != EscritorBinario.VERSAO) {
+            throw new IOException("Versão do arquivo binário não suportada: " + versao);
+        }
+        long quantidade = cabecalho.getLong();
+        long posicaoDicionario = cabecalho.getLong();
+
+        String[] dicionario = lerDicionario(canal, posicaoDicionario);
+        // Tipo e id de categoria de cada texto do dicionário, resolvidos uma vez só
+        Tipo[] tipos = new Tipo[dicionario.length];
+        int[] categorias = new int[dicionario.length];
+        Arrays.fill(categorias, -1);
+
+        long posicao = EscritorBinario.TAMANHO_CABECALHO;
+        buffer.clear().flip();
+        for (long i = 0; i < quantidade; i++) {
+            posicao = garantir(canal, posicao, posicaoDicionario, 4 + 8 + 5 + 5 + 5);
+            LocalDate data = data(buffer.getInt());
+            long valor = buffer.getLong();
+            int tipo = getVarint();
+            if (tipos[tipo] == null) {
+                tipos[tipo] = Tipo.deTexto(dicionario[tipo]);
+            }
+            int categoria = getVarint();
+            if (categorias[categoria] < 0) {
+                categorias[categoria] = Categorias.id(dicionario[categoria]);
+            }
+            int tamanho = getVarint();
+
+            posicao = garantir(canal, posicao, posicaoDicionario, tamanho);
+            String descricao = descricoes.obter(buffer.array(), buffer.position(), buffer.position() + tamanho);
+            buffer.position(buffer.position() + tamanho);
+
+            destino.accept(new Transacao(data, valor, descricao, tipos[tipo], categorias[categoria]));
+            if ((i & 0xFFFF) == 0xFFFF) {
+                progresso.accept((double) i / quantidade);
+            }
+        }
+        return quantidade;
+    }
+
+    private String[] lerDicionario(FileChannel canal, long posicao) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) (canal.size() - posicao));
+        lerTudo(canal, bytes, posicao);
+        bytes.flip();
+
+        String[] dicionario = new String[bytes.getInt()];
+        for (int i = 0; i < dicionario.length; i++) {
+            int tamanho = Short.toUnsignedInt(bytes.getShort());
+            dicionario[i] = new String(bytes.array(), bytes.position(), tamanho, StandardCharsets.UTF_8);
+            bytes.position(bytes.position() + tamanho);
+        }
+        return dicionario;
+    }
+
+    // Garante pelo menos 'bytes' no buffer (ou o que restar antes do dicionário)
+    private long garantir(FileChannel canal, long posicao, long limite, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return posicao;
+        }
+        buffer.compact();
+        if (buffer.remaining() > limite - posicao) {
+            buffer.limit(buffer.position() + (int) (limite - posicao));
+        }
+        int lidos = lerTudo(canal, buffer, posicao);
+        buffer.limit(buffer.capacity());
+        buffer.flip();
+        // Menos que o pedido só é normal no fim dos registros (o último pode ser menor que o máximo)
+        if (buffer.remaining() < bytes && posicao + lidos < limite) {
+            throw new IOException("Arquivo binário truncado");
+        }
+        return posicao + lidos;
+    }
+
+    private static int lerTudo(FileChannel canal, ByteBuffer destino, long posicao) throws IOException {
+        int total = 0;
+        while (destino.hasRemaining()) {
+            int n = canal.read(destino, posicao + total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    private int getVarint() {
+        int valor = 0;
+        int deslocamento = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            valor |= (b & 0x7F) << deslocamento;
+            deslocamento += 7;
+        } while (b < 0);
+        return valor;
+    }
+
+    private LocalDate data(int dia) {
+        int slot = (dia ^ (dia >>> 12)) & (datas.length - 1);
+        LocalDate data = datas[slot];
+        if (data == null || diasDatas[slot] != dia) {
+            data = LocalDate.ofEpochDay(dia);
+            datas[slot] = data;
+            diasDatas[slot] = dia;
+        }
+        return data;
+    }
+}
@@ -0,0 +1,216 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+// Lê o arquivo de transações direto do canal, varrendo os bytes campo a campo.
+// Não usa split() nem cria String intermediária por campo: datas, tipos e
+// categorias repetidos saem de caches, só a descrição nova vira String.
+public class LeitorDeTransacoes {
+    private static final int TAMANHO_BLOCO = 1 << 20;
+
+    private final CacheDeTextos textos = new CacheDeTextos(256);
+    private final CacheDeTextos descricoes = new CacheDeTextos(16384);
+    private final LocalDate[] datas = new LocalDate[4096];
+    private final int[] chavesDatas = new int[4096];
+
+    private byte[] bloco = new byte[TAMANHO_BLOCO];
+    private long linhasInvalidas;
+
+    public long getLinhasInvalidas() {
+        return linhasInvalidas;
+    }
+
+    // Lê as linhas que começam entre inicio (inclusive) e fim (exclusive).
+    // inicio precisa estar no começo de uma linha; a última linha pode passar de fim.
+    public long ler(FileChannel canal, long inicio, long fim, Consumer<Transacao> destino) throws IOException {
+        long lidas = 0;
+        long posicao = inicio;
+        int ocupado = 0;
+        boolean acabou = false;
+
+        while (!acabou) {
+            if (ocupado == bloco.length) {
+                // Linha maior que o bloco: dobra o espaço e continua lendo
+                byte[] maior = new byte[bloco.length * 2];
+                System.arraycopy(bloco, 0, maior, 0, ocupado);
+                bloco = maior;
+            }
+
+            int n = canal.read(ByteBuffer.wrap(bloco, ocupado, bloco.length - ocupado), posicao);
+            if (n <= 0) {
+                acabou = true;
+            } else {
+                posicao += n;
+                ocupado += n;
+            }
+
+            int inicioLinha = 0;
+            long posicaoLinha = posicao - ocupado;
+            for (int i = 0; i < ocupado; i++) {
+                if (bloco[i] == '\n') {
+                    if (posicaoLinha + inicioLinha >= fim) {
+                        return lidas;
+                    }
+                    if (lerLinha(inicioLinha, i, destino)) {
+                        lidas++;
+                    }
+                    inicioLinha = i + 1;
+                }
+            }
+
+            if (acabou && inicioLinha < ocupado && posicaoLinha + inicioLinha < fim) {
+                // Última linha do arquivo sem quebra de linha no final
+                if (lerLinha(inicioLinha, ocupado, destino)) {
+                    lidas++;
+                }
+                inicioLinha = ocupado;
+            }
+
+            if (posicaoLinha + inicioLinha >= fim) {
+                return lidas;
+            }
+
+            ocupado -= inicioLinha;
+            System.arraycopy(bloco, inicioLinha, bloco, 0, ocupado);
+        }
+        return lidas;
+    }
+
+    // Interpreta uma única linha no formato do arquivo; devolve null se for inválida
+    public Transacao interpretar(String linha) {
+        byte[] bytes = linha.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > bloco.length) {
+            bloco = new byte[bytes.length];
+        }
+        System.arraycopy(bytes, 0, bloco, 0, bytes.length);
+
+        Transacao[] resultado = new Transacao[1];
+        lerLinha(0, bytes.length, t -> resultado[0] = t);
+        return resultado[0];
+    }
+
+    private boolean lerLinha(int inicio, int fim, Consumer<Transacao> destino) {
+        if (fim > inicio && bloco[fim - 1] == '\r') {
+            fim--;
+        }
+        if (fim == inicio) {
+            return false;
+        }
+
+        // data;valor;descricao;tipo;categoria - tipo e categoria são procurados
+        // a partir do fim para que um ';' dentro da descrição não quebre a linha
+        int p1 = procurar(inicio, fim);
+        int p2 = p1 < 0 ? -1 : procurar(p1 + 1, fim);
+        int p4 = ultimo(inicio, fim);
+        int p3 = p4 < 0 ? -1 : ultimo(inicio, p4);
+        if (p2 < 0 || p3 <= p2) {
+            linhasInvalidas++;
+            return false;
+        }
+
+        try {
+            LocalDate data = lerData(inicio, p1);
+            long valor = lerValor(p1 + 1, p2);
+            String descricao = descricoes.obter(bloco, p2 + 1, p3);
+            Tipo tipo = Tipo.deTexto(textos.obter(bloco, p3 + 1, p4));
+            String categoria = textos.obter(bloco, p4 + 1, fim);
+            destino.accept(new Transacao(data, valor, descricao, tipo, categoria));
+            return true;
+        } catch (RuntimeException e) {
+            linhasInvalidas++;
+            return false;
+        }
+    }
+
+    private int procurar(int de, int ate) {
+        for (int i = de; i < ate; i++) {
+            if (bloco[i] == ';') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int ultimo(int de, int ate) {
+        for (int i = ate - 1; i >= de; i--) {
+            if (bloco[i] == ';') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private LocalDate lerData(int inicio, int fim) {
+        // Formato ISO (aaaa-mm-dd); qualquer outra coisa cai no LocalDate.parse
+        if (fim - inicio != 10 || bloco[inicio + 4] != '-' || bloco[inicio + 7] != '-') {
+            return LocalDate.parse(new String(bloco, inicio, fim - inicio, StandardCharsets.UTF_8));
+        }
+        int ano = digitos(inicio, inicio + 4);
+        int mes = digitos(inicio + 5, inicio + 7);
+        int dia = digitos(inicio + 8, inicio + 10);
+        int chave = ano * 10000 + mes * 100 + dia;
+
+        int slot = (chave ^ (chave >>> 7)) & (datas.length - 1);
+        LocalDate data = datas[slot];
+        if (data == null || chavesDatas[slot] != chave) {
+            data = LocalDate.of(ano, mes, dia);
+            datas[slot] = data;
+            chavesDatas[slot] = chave;
+        }
+        return data;
+    }
+
+    private int digitos(int inicio, int fim) {
+        int valor = 0;
+        for (int i = inicio; i < fim; i++) {
+            int d = bloco[i] - '0';
+            if (d < 0 || d > 9) {
+                throw new NumberFormatException("Dígito inválido na data");
+            }
+            valor = valor * 10 + d;
+        }
+        return valor;
+    }
+
+    // Valor em centavos direto dos bytes ("3000.00", "45.5"); o que fugir disso
+    // (notação científica, mais de duas casas) vai para o Dinheiro.converter
+    private long lerValor(int inicio, int fim) {
+        int i = inicio;
+        boolean negativo = false;
+        if (i < fim && (bloco[i] == '-' || bloco[i] == '+')) {
+            negativo = bloco[i] == '-';
+            i++;
+        }
+
+        long centavos = 0;
+        int casasDecimais = -1;
+        int algarismos = 0;
+        for (; i < fim; i++) {
+            byte b = bloco[i];
+            if (b >= '0' && b <= '9') {
+                centavos = centavos * 10 + (b - '0');
+                algarismos++;
+                if (casasDecimais >= 0) {
+                    casasDecimais++;
+                }
+            } else if (b == '.' && casasDecimais < 0) {
+                casasDecimais = 0;
+            } else {
+                break;
+            }
+        }
+
+        if (i != fim || algarismos == 0 || algarismos > 16 || casasDecimais > 2) {
+            return Dinheiro.converter(new String(bloco, inicio, fim - inicio, StandardCharsets.US_ASCII));
+        }
+        if (casasDecimais <= 0) {
+            centavos *= 100;
+        } else if (casasDecimais == 1) {
+            centavos *= 10;
+        }
+        return negativo ? -centavos : centavos;
+    }
+}
@@ -0,0 +1,47 @@
+import java.util.Arrays;
+
+// Lista de int sem boxing, usada pelos índices
+public class ListaDeInteiros {
+    private int[] valores;
+    private int tamanho;
+
+    public ListaDeInteiros() {
+        this(8);
+    }
+
+    public ListaDeInteiros(int capacidade) {
+        valores = new int[Math.max(capacidade, 1)];
+    }
+
+    public void adicionar(int valor) {
+        if (tamanho == valores.length) {
+            valores = Arrays.copyOf(valores, tamanho * 2);
+        }
+        valores[tamanho++] = valor;
+    }
+
+    public int obter(int indice) {
+        return valores[indice];
+    }
+
+    public void definir(int indice, int valor) {
+        valores[indice] = valor;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public void removerEm(int indice) {
+        System.arraycopy(valores, indice + 1, valores, indice, tamanho - indice - 1);
+        tamanho--;
+    }
+
+    public void limpar() {
+        tamanho = 0;
+    }
+
+    public int[] paraArray() {
+        return Arrays.copyOf(valores, tamanho);
+    }
+}
@@ -0,0 +1,230 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Livro-caixa com um arquivo por ano na pasta transações.anos e um manifesto que lista os
+// anos, o arquivo de cada um (texto ou binário, conforme o formato em que foi gravado) e
+// quantas transações ele tem. Na abertura só os anos recentes vão para a memória; os outros
+// ficam no disco até alguém precisar deles (Calculadora.carregarAno).
+//
+// Formato do manifesto:
+//   #manifesto;1
+//   AAAA;quantidade;arquivo
+//
+// Cada vez que um ano é regravado o arquivo ganha um nome novo (2024.bin, 2024.1.bin,
+// 2024.2.bin...) e o manifesto, gravado por último com troca atômica, passa a apontar para
+// ele; os arquivos antigos só são apagados depois. Uma queda no meio do salvamento deixa o
+// manifesto anterior apontando para os arquivos anteriores, todos intactos.
+public class LivroParticionado {
+    static final String PASTA = "transações.anos";
+    static final String MANIFESTO = "manifesto.txt";
+    private static final String CABECALHO = "#manifesto;1";
+
+    private final TreeMap<Integer, Particao> particoes = new TreeMap<>();
+
+    public SortedSet<Integer> getAnos() {
+        return new TreeSet<>(particoes.keySet());
+    }
+
+    // Anos lidos na abertura: os últimos anosRecentes (contando o atual) ou, se nenhum
+    // deles tem transações, o ano mais recente que tiver
+    public SortedSet<Integer> getAnosRecentes() {
+        int primeiro = Year.now().getValue() - GerenciadorDeArquivos.getAnosRecentes() + 1;
+        SortedSet<Integer> recentes = new TreeSet<>(particoes.tailMap(primeiro).keySet());
+        if (recentes.isEmpty() && !particoes.isEmpty()) {
+            recentes.add(particoes.lastKey());
+        }
+        return recentes;
+    }
+
+    public SortedSet<Integer> getAnosAntigos() {
+        SortedSet<Integer> antigos = getAnos();
+        antigos.removeAll(getAnosRecentes());
+        return antigos;
+    }
+
+    public int getQuantidade(int ano) {
+        Particao particao = particoes.get(ano);
+        return particao == null ? 0 : particao.quantidade;
+    }
+
+    public long getQuantidade(Collection<Integer> anos) {
+        long quantidade = 0;
+        for (int ano : anos) {
+            quantidade += getQuantidade(ano);
+        }
+        return quantidade;
+    }
+
+    // Lê as transações do ano, na ordem do arquivo
+    public List<Transacao> ler(int ano) throws IOException {
+        List<Transacao> transacoes = new ArrayList<>(getQuantidade(ano));
+        ler(ano, transacoes::add);
+        return transacoes;
+    }
+
+    public long ler(int ano, Consumer<Transacao> destino) throws IOException {
+        Particao particao = particoes.get(ano);
+        if (particao == null) {
+            return 0;
+        }
+        return GerenciadorDeArquivos.lerArquivo(caminhoDoArquivo(particao.arquivo), destino, p -> {});
+    }
+
+    // Totais por mês dos anos informados: dos resumos mensais gravados, se estão em dia,
+    // senão lendo os arquivos desses anos (sem guardar as transações)
+    public ResumosMensais resumir(Collection<Integer> anos) throws IOException {
+        ResumosMensais salvos = GerenciadorDeArquivos.carregarResumos();
+        if (salvos != null) {
+            return salvos.filtrar(mes -> anos.contains(mes.getYear()));
+        }
+        ResumosMensais resumos = new ResumosMensais();
+        for (int ano : anos) {
+            ler(ano, t -> resumos.registrar(t, null));
+        }
+        return resumos;
+    }
+
+    String getArquivo(int ano) {
+        Particao particao = particoes.get(ano);
+        return particao == null ? null : particao.arquivo;
+    }
+
+    // Nome para a próxima gravação do ano: a versão do arquivo atual mais um ("2024.bin"
+    // é a versão 0), nunca o nome que o manifesto aponta
+    String proximoArquivo(int ano, String extensao) {
+        String atual = getArquivo(ano);
+        int versao = 0;
+        if (atual != null && atual.startsWith(ano + ".")) {
+            String resto = atual.substring((ano + ".").length());
+            int ponto = resto.indexOf('.');
+            if (ponto > 0 && resto.substring(0, ponto).chars().allMatch(Character::isDigit)) {
+                versao = Integer.parseInt(resto.substring(0, ponto));
+            }
+        }
+        return ano + "." + (versao + 1) + extensao;
+    }
+
+    // Identifica este snapshot pelos arquivos que ele lista (nome, inode, tamanho e data de
+    // modificação de cada um), para os resumos mensais saberem a que versão se referem
+    String identificar() throws IOException {
+        StringBuilder identificacao = new StringBuilder();
+        for (Particao particao : particoes.values()) {
+            Path arquivo = caminhoDoArquivo(particao.arquivo);
+            identificacao.append(identificacao.length() == 0 ? "" : ",").append(particao.arquivo).append('|');
+            if (!Files.exists(arquivo)) {
+                identificacao.append("ausente");
+                continue;
+            }
+            BasicFileAttributes atributos = Files.readAttributes(arquivo, BasicFileAttributes.class);
+            identificacao.append(atributos.fileKey()).append('|').append(atributos.size())
+                    .append('|').append(atributos.lastModifiedTime().toMillis());
+        }
+        return identificacao.length() == 0 ? "vazio" : identificacao.toString();
+    }
+
+    // Depois de escrever o manifesto: apaga os arquivos de ano que ele não lista mais (versões
+    // substituídas, anos que ficaram vazios e sobras de um salvamento interrompido)
+    void apagarNaoListados() throws IOException {
+        Set<String> listados = new HashSet<>();
+        for (Particao particao : particoes.values()) {
+            listados.add(particao.arquivo);
+        }
+        List<Path> apagar = new ArrayList<>();
+        try (Stream<Path> arquivos = Files.list(pasta())) {
+            arquivos.filter(arquivo -> {
+                String nome = arquivo.getFileName().toString();
+                return !nome.isEmpty() && Character.isDigit(nome.charAt(0)) && !listados.contains(nome);
+            }).forEach(apagar::add);
+        }
+        for (Path arquivo : apagar) {
+            Files.deleteIfExists(arquivo);
+        }
+    }
+
+    void definir(int ano, String arquivo, int quantidade) {
+        particoes.put(ano, new Particao(arquivo, quantidade));
+    }
+
+    void remover(int ano) {
+        particoes.remove(ano);
+    }
+
+    static Path pasta() {
+        return GerenciadorDeArquivos.caminho(PASTA);
+    }
+
+    static Path caminhoDoManifesto() {
+        return pasta().resolve(MANIFESTO);
+    }
+
+    static Path caminhoDoArquivo(String arquivo) {
+        return pasta().resolve(arquivo);
+    }
+
+    // null se o manifesto não existe
+    static LivroParticionado ler() throws IOException {
+        LivroParticionado livro = new LivroParticionado();
+        try (BufferedReader br = Files.newBufferedReader(caminhoDoManifesto())) {
+            String cabecalho = br.readLine();
+            if (!CABECALHO.equals(cabecalho)) {
+                throw new IOException("Manifesto com cabeçalho desconhecido: " + cabecalho);
+            }
+            String linha;
+            while ((linha = br.readLine()) != null) {
+                String[] partes = linha.split(";", 3);
+                if (partes.length < 3) {
+                    throw new IOException("Linha inválida no manifesto: " + linha);
+                }
+                try {
+                    livro.definir(Integer.parseInt(partes[0]), partes[2], Integer.parseInt(partes[1]));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Linha inválida no manifesto: " + linha);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        return livro;
+    }
+
+    void escrever() throws IOException {
+        Path manifesto = caminhoDoManifesto();
+        Path temporario = manifesto.resolveSibling(MANIFESTO + ".tmp");
+        try (BufferedWriter escritor = Files.newBufferedWriter(temporario)) {
+            escritor.write(CABECALHO + "\n");
+            for (Map.Entry<Integer, Particao> particao : particoes.entrySet()) {
+                escritor.write(particao.getKey() + ";" + particao.getValue().quantidade + ";"
+                        + particao.getValue().arquivo + "\n");
+            }
+        }
+        Files.move(temporario, manifesto, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static class Particao {
+        final String arquivo;
+        final int quantidade;
+
+        Particao(String arquivo, int quantidade) {
+            this.arquivo = arquivo;
+            this.quantidade = quantidade;
+        }
+    }
+}
@@ -4,6 +4,10 @@ import java.util.Scanner;
 public class Main {
     public static void main(String[] args) {
         Calculadora calc = new Calculadora(GerenciadorDeArquivos.carregar());
+        LivroParticionado particoes = GerenciadorDeArquivos.abrirParticoes();
+        if(particoes != null){
+            calc.usarParticoes(particoes);
+        }
         Scanner input = new Scanner(System.in);
 
 
@@ -24,13 +28,10 @@ public class Main {
                 String descricao = input.nextLine();
 
                 System.out.println("Valor: R$ ");
-                double valor = input.nextDouble();
-
-                input.nextLine();
+                long valor = Dinheiro.converter(input.nextLine());
 
                 System.out.println("Tipo (Receita/Despesa): ");
-                String tipo = input.nextLine();
-                tipo = CapitalizarPrimeiraLetra.converter(tipo);
+                Tipo tipo = Tipo.deTexto(input.nextLine());
 
                 System.out.println("Categoria: ");
                 String categoria = input.nextLine();
@@ -42,10 +43,12 @@ public class Main {
             }else if(opcao == 2){
                 calc.listarTransacoes();
             }else if(opcao == 3){
-                System.out.printf("Saldo atual: R$ %.2f\n", calc.calcularSaldo());
+                System.out.println("Saldo atual: " + Dinheiro.formatar(calc.calcularSaldo()));
             }else if(opcao == 4){
                 System.out.println("Salvando...");
-                GerenciadorDeArquivos.salvar(calc.getTransacoes());
+                // Com o diário, o arquivo lido já tinha operações reaplicadas: os resumos são refeitos inteiros
+                GerenciadorDeArquivos.salvar(calc.getTransacoes(),
+                        GerenciadorDeArquivos.isDiarioAtivo() ? null : calc.getMesesAlterados(), calc.getAnosNaoCarregados());
                 System.out.println("Fechando sistema...");
                 break;
             }else{
@@ -1,6 +1,9 @@
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -13,17 +16,50 @@ import javafx.scene.layout.*;
 import javafx.scene.shape.Arc;
 import javafx.scene.shape.ArcType;
 import javafx.scene.shape.Circle;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import java.io.File;
+import java.io.IOException;
 import java.time.LocalDate;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.SortedSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
 
 public class MainApp extends Application {
 
     private Calculadora calculadora;
+    private Diario diario;
+    // Sem diário, as alterações são gravadas em segundo plano por este
+    private SalvamentoAutomatico salvamentoAutomatico;
     private TableView<Transacao> tabelaTransacao;
-    private ObservableList<Transacao> transacoesObservable;
+    // Itens da tabela lidos direto da calculadora, só para as linhas visíveis
+    private final TransacoesVirtuais transacoesVirtuais = new TransacoesVirtuais();
+
+    // Carregamento inicial em segundo plano
+    private static final int TAMANHO_LOTE = 10_000;
+    private boolean carregando = true;
+    // Uma tarefa em segundo plano está alterando a calculadora (importação, regras, ano antigo)
+    private boolean ocupado;
+    private boolean fechando;
+    private HBox barraCarregamento;
+    private Label labelCarregamento;
+    private ProgressBar progressoCarregamento;
+    private HBox barraBusca;
+    private HBox barraBotoes;
+
+    // Cards e gráficos desenhados pelos resumos mensais salvos enquanto o arquivo carrega
+    private boolean resumosSalvosExibidos;
 
     // Labels dos cards
     private Label labelSaldo;
@@ -35,6 +71,21 @@ public class MainApp extends Application {
     private TextField campoBusca;
     private ComboBox<String> filtroTipo;
     private ComboBox<String> filtroCategoria;
+    private CheckBox filtroDuplicatas;
+
+    // Livro particionado: traz o próximo ano que ficou só no disco
+    private Button btnCarregarAno;
+
+    // Busca em segundo plano: espera uma pausa na digitação, roda uma consulta por vez
+    // e só publica o resultado da mais recente
+    private final PauseTransition pausaBusca = new PauseTransition(Duration.millis(150));
+    private final ExecutorService executorBusca = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "busca");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> buscaPendente;
+    private long geracaoBusca;
 
     // Gráficos
     private PieChart graficoCategoria;
@@ -47,15 +98,17 @@ public class MainApp extends Application {
     private Label progReceitasLabel;
     private Label progDespesasLabel;
 
+    // Quantidade de meses no gráfico de tendência
+    private static final int MESES_TENDENCIA = 6;
+
     // Atalhos de teclado
     private KeyCombination atalhoNovo = new KeyCodeCombination(KeyCode.N, KeyCombination.CONTROL_DOWN);
     private KeyCombination atalhoRemover = new KeyCodeCombination(KeyCode.DELETE);
 
     @Override
     public void start(Stage primaryStage) {
-        // Carregar dados
-        calculadora = new Calculadora(GerenciadorDeArquivos.carregar());
-        transacoesObservable = FXCollections.observableArrayList(calculadora.getTransacoes());
+        // Começa vazio; as transações chegam pelo carregamento em segundo plano
+        calculadora = new Calculadora(Calculadora.novoArmazenamento());
 
         // Container principal
         BorderPane root = new BorderPane();
@@ -82,14 +135,143 @@ public class MainApp extends Application {
         primaryStage.setTitle("Dashboard Financeiro");
         primaryStage.setScene(scene);
         primaryStage.setMaximized(true);
-        primaryStage.setOnCloseRequest(e -> salvarAoFechar());
+        primaryStage.setOnCloseRequest(e -> {
+            // A janela só fecha quando o salvamento final termina; até lá ela continua respondendo
+            e.consume();
+            if (!fechando) {
+                fechando = true;
+                salvarAoFechar().whenComplete((r, erro) -> Platform.runLater(primaryStage::close));
+            }
+        });
         primaryStage.show();
 
-        atualizarInterface();
+        exibirResumosSalvos();
+        carregarTransacoes();
+    }
+
+    // Os resumos mensais têm algumas centenas de linhas: os totais aparecem na hora, mesmo
+    // com anos de histórico. Não valem se o diário tem operações que eles não contam.
+    private void exibirResumosSalvos() {
+        ResumosMensais salvos = GerenciadorDeArquivos.carregarResumos();
+        boolean diarioPendente;
+        try {
+            diarioPendente = GerenciadorDeArquivos.isDiarioAtivo() && Diario.temRegistros();
+        } catch (IOException e) {
+            diarioPendente = true;
+        }
+        if (salvos == null || diarioPendente) {
+            atualizarInterface();
+            return;
+        }
+        exibirTotais(salvos.getResumo(), salvos::saldoAte);
+        resumosSalvosExibidos = true;
+    }
+
+    // Lê o arquivo fora da thread da interface: a janela aparece na hora e as linhas
+    // entram na tabela em lotes. Edição fica bloqueada até a Calculadora final existir.
+    private void carregarTransacoes() {
+        barraBusca.setDisable(true);
+        barraBotoes.setDisable(true);
+
+        CarregamentoInicial carregamento = new CarregamentoInicial();
+        progressoCarregamento.progressProperty().bind(carregamento.progressProperty());
+        transacoesVirtuais.exibir(carregamento.transacoes, carregamento.transacoes, 0);
+
+        carregamento.setOnSucceeded(e -> {
+            calculadora = carregamento.getValue();
+            // Mutações da Calculadora travam nela mesma: a tabela lê as linhas com a mesma trava
+            transacoesVirtuais.exibir(calculadora.getTransacoes(), calculadora, calculadora.getTransacoes().size());
+            calculadora.adicionarOuvinte(new NaThreadDaInterface(transacoesVirtuais));
+            calculadora.adicionarOuvinte(new NaThreadDaInterface(new EspelhoDaCalculadora()));
+            if (GerenciadorDeArquivos.isDiarioAtivo()) {
+                try {
+                    diario = Diario.abrir(calculadora.getTransacoes());
+                } catch (IOException ex) {
+                    System.out.println("Diário indisponível, salvando em segundo plano: " + ex.getMessage());
+                }
+            }
+            if (diario == null) {
+                iniciarSalvamentoAutomatico();
+            }
+            carregando = false;
+            barraCarregamento.setVisible(false);
+            barraCarregamento.setManaged(false);
+            barraBusca.setDisable(false);
+            barraBotoes.setDisable(false);
+            reaplicarFiltros();
+            atualizarInterface();
+        });
+        // Sem carregamento completo nada é salvo ao fechar, para não sobrescrever o arquivo
+        carregamento.setOnFailed(e -> {
+            barraCarregamento.setVisible(false);
+            barraCarregamento.setManaged(false);
+            mostrarErro("Erro ao carregar", "Não foi possível carregar as transações: "
+                    + carregamento.getException().getMessage());
+        });
+
+        Thread thread = new Thread(carregamento, "carregamento");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // As linhas vão para o armazenamento em lotes, travando a lista: a tabela lê dela
+    // (só as linhas já publicadas) enquanto o arquivo ainda está sendo lido
+    private class CarregamentoInicial extends Task<Calculadora> {
+        private final List<Transacao> transacoes = Calculadora.novoArmazenamento();
+        private final List<Transacao> lote = new ArrayList<>(TAMANHO_LOTE);
+
+        @Override
+        protected Calculadora call() throws Exception {
+            GerenciadorDeArquivos.carregar(t -> {
+                lote.add(t);
+                if (lote.size() == TAMANHO_LOTE) {
+                    publicarLote();
+                }
+            }, progresso -> updateProgress(progresso, 1));
+            publicarLote();
+
+            if (GerenciadorDeArquivos.isDiarioAtivo() && Diario.temRegistros()) {
+                // O diário remove e troca linhas já publicadas: a tabela para de lê-las antes
+                FutureTask<Void> esconder = new FutureTask<>(() -> transacoesVirtuais.exibir(List.of(), transacoes, 0), null);
+                Platform.runLater(esconder);
+                esconder.get();
+                synchronized (transacoes) {
+                    Diario.reaplicar(transacoes);
+                }
+            }
+            // Montar totais e índices de milhões de linhas também fica fora da interface
+            Calculadora carregada = new Calculadora(transacoes);
+            LivroParticionado particoes = GerenciadorDeArquivos.abrirParticoes();
+            if (particoes != null) {
+                carregada.usarParticoes(particoes);
+            }
+            return carregada;
+        }
+
+        private void publicarLote() {
+            if (lote.isEmpty()) {
+                return;
+            }
+            int publicadas;
+            synchronized (transacoes) {
+                transacoes.addAll(lote);
+                publicadas = transacoes.size();
+            }
+            lote.clear();
+            Platform.runLater(() -> {
+                transacoesVirtuais.publicar(publicadas);
+                if (!resumosSalvosExibidos) {
+                    labelTotal.setText(String.valueOf(publicadas));
+                }
+            });
+        }
     }
 
     private void configurarAtalhosTeclado(Scene scene) {
         scene.setOnKeyPressed(event -> {
+            if (carregando || ocupado) {
+                return;
+            }
             if (atalhoNovo.match(event)) {
                 adicionarTransacao();
             } else if (atalhoRemover.match(event)) {
@@ -117,7 +299,17 @@ public class MainApp extends Application {
         subtitulo.getStyleClass().add("app-subtitle");
 
         headerContent.getChildren().addAll(titulo, subtitulo);
-        topo.getChildren().add(headerContent);
+
+        // Visível só enquanto o carregamento inicial não termina
+        barraCarregamento = new HBox(12);
+        barraCarregamento.setAlignment(Pos.CENTER_LEFT);
+        labelCarregamento = new Label("Carregando transações...");
+        labelCarregamento.getStyleClass().add("progress-label");
+        progressoCarregamento = new ProgressBar();
+        progressoCarregamento.setPrefWidth(240);
+        barraCarregamento.getChildren().addAll(labelCarregamento, progressoCarregamento);
+
+        topo.getChildren().addAll(headerContent, barraCarregamento);
         return topo;
     }
 
@@ -418,15 +610,15 @@ public class MainApp extends Application {
         header.getChildren().addAll(titulo, subtitulo);
 
         // Barra de busca e filtros
-        HBox barraBusca = criarBarraBusca();
+        barraBusca = criarBarraBusca();
 
         // Tabela
         tabelaTransacao = criarTabela();
 
         // Botões
-        HBox botoes = criarBotoes();
+        barraBotoes = criarBotoes();
 
-        secao.getChildren().addAll(header, barraBusca, tabelaTransacao, botoes);
+        secao.getChildren().addAll(header, barraBusca, tabelaTransacao, barraBotoes);
         return secao;
     }
 
@@ -437,7 +629,8 @@ public class MainApp extends Application {
         campoBusca = new TextField();
         campoBusca.setPromptText("Buscar por descrição...");
         campoBusca.getStyleClass().add("search-field");
-        campoBusca.textProperty().addListener((obs, old, novo) -> filtrarTransacoes());
+        pausaBusca.setOnFinished(e -> filtrarTransacoes());
+        campoBusca.textProperty().addListener((obs, old, novo) -> pausaBusca.playFromStart());
 
         Tooltip tooltipBusca = new Tooltip("Digite para filtrar transações pela descrição");
         campoBusca.setTooltip(tooltipBusca);
@@ -461,6 +654,10 @@ public class MainApp extends Application {
         Tooltip tooltipCategoria = new Tooltip("Filtrar por categoria");
         filtroCategoria.setTooltip(tooltipCategoria);
 
+        filtroDuplicatas = new CheckBox("Só duplicadas");
+        filtroDuplicatas.setOnAction(e -> filtrarTransacoes());
+        filtroDuplicatas.setTooltip(new Tooltip("Mostrar só transações com mesma data, valor e descrição de outra"));
+
         Button btnLimpar = new Button("Limpar Filtros");
         btnLimpar.getStyleClass().addAll("btn", "btn-secondary");
         btnLimpar.setOnAction(e -> limparFiltros());
@@ -469,13 +666,13 @@ public class MainApp extends Application {
         btnLimpar.setTooltip(tooltipLimpar);
 
         HBox.setHgrow(campoBusca, Priority.ALWAYS);
-        barra.getChildren().addAll(campoBusca, filtroTipo, filtroCategoria, btnLimpar);
+        barra.getChildren().addAll(campoBusca, filtroTipo, filtroCategoria, filtroDuplicatas, btnLimpar);
         return barra;
     }
 
     private TableView<Transacao> criarTabela() {
         TableView<Transacao> tabela = new TableView<>();
-        tabela.setItems(transacoesObservable);
+        tabela.setItems(transacoesVirtuais);
         tabela.setPlaceholder(criarEstadoVazio());
 
         // Coluna Data
@@ -503,7 +700,7 @@ public class MainApp extends Application {
         TableColumn<Transacao, String> colTipo = new TableColumn<>("Tipo");
         colTipo.setCellValueFactory(cellData ->
                 new javafx.beans.property.SimpleStringProperty(
-                        cellData.getValue().getTipo()));
+                        cellData.getValue().getTipo().getNome()));
         colTipo.setCellFactory(col -> new TableCell<Transacao, String>() {
             @Override
             protected void updateItem(String tipo, boolean empty) {
@@ -526,21 +723,21 @@ public class MainApp extends Application {
         colTipo.setPrefWidth(120);
 
         // Coluna Valor formatada
-        TableColumn<Transacao, Double> colValor = new TableColumn<>("Valor");
+        TableColumn<Transacao, Long> colValor = new TableColumn<>("Valor");
         colValor.setCellValueFactory(cellData ->
                 new javafx.beans.property.SimpleObjectProperty<>(
-                        cellData.getValue().getValor()));
-        colValor.setCellFactory(col -> new TableCell<Transacao, Double>() {
+                        cellData.getValue().getValorCentavos()));
+        colValor.setCellFactory(col -> new TableCell<Transacao, Long>() {
             @Override
-            protected void updateItem(Double valor, boolean empty) {
+            protected void updateItem(Long valor, boolean empty) {
                 super.updateItem(valor, empty);
                 getStyleClass().removeAll("valor-positivo", "valor-negativo");
                 if (empty || valor == null) {
                     setText(null);
                 } else {
-                    setText(String.format("R$ %.2f", valor));
+                    setText(Dinheiro.formatar(valor));
                     Transacao t = getTableView().getItems().get(getIndex());
-                    if (t.getTipo().equals("Receita")) {
+                    if (t.getTipo() == Tipo.RECEITA) {
                         getStyleClass().add("valor-positivo");
                     } else {
                         getStyleClass().add("valor-negativo");
@@ -603,23 +800,57 @@ public class MainApp extends Application {
         Tooltip tooltipRemover = new Tooltip("Remover transação selecionada (Delete)");
         btnRemover.setTooltip(tooltipRemover);
 
+        Button btnImportar = new Button("Importar Extrato");
+        btnImportar.getStyleClass().addAll("btn", "btn-secondary");
+        btnImportar.setOnAction(e -> importarExtratos());
+
+        Tooltip tooltipImportar = new Tooltip("Importar extratos bancários em CSV ou OFX");
+        btnImportar.setTooltip(tooltipImportar);
+
+        Button btnRegras = new Button("Aplicar Regras");
+        btnRegras.getStyleClass().addAll("btn", "btn-secondary");
+        btnRegras.setOnAction(e -> aplicarRegras());
+
+        Tooltip tooltipRegras = new Tooltip("Recategorizar todas as transações pelas regras de categoria");
+        btnRegras.setTooltip(tooltipRegras);
+
+        btnCarregarAno = new Button();
+        btnCarregarAno.getStyleClass().addAll("btn", "btn-secondary");
+        btnCarregarAno.setOnAction(e -> carregarAnoAnterior());
+        btnCarregarAno.setVisible(false);
+        btnCarregarAno.setManaged(false);
+
+        Tooltip tooltipCarregarAno = new Tooltip("Trazer para a tabela um ano que ainda está só no disco");
+        btnCarregarAno.setTooltip(tooltipCarregarAno);
+
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
-        botoes.getChildren().addAll(btnAdicionar, btnEditar, btnRemover, spacer);
+        botoes.getChildren().addAll(btnAdicionar, btnEditar, btnRemover, spacer, btnCarregarAno, btnRegras, btnImportar);
         return botoes;
     }
 
     private void atualizarInterface() {
-        // Atualizar cards
-        double saldo = calculadora.calcularSaldo();
-        double receitas = calcularReceitas();
-        double despesas = calcularDespesas();
+        // Totais já mantidos pela calculadora, sem varrer as transações
+        exibirTotais(calculadora.getResumo(), calculadora::saldoAte);
+
+        SortedSet<Integer> naoCarregados = calculadora.getAnosNaoCarregados();
+        btnCarregarAno.setVisible(!naoCarregados.isEmpty());
+        btnCarregarAno.setManaged(!naoCarregados.isEmpty());
+        if (!naoCarregados.isEmpty()) {
+            btnCarregarAno.setText("Carregar " + naoCarregados.last());
+        }
+    }
+
+    // Cards, barras e gráficos a partir de um resumo e de uma fonte de saldo acumulado
+    private void exibirTotais(ResumoFinanceiro resumo, ToLongFunction<LocalDate> saldoAte) {
+        long receitas = resumo.getReceitas();
+        long despesas = resumo.getDespesas();
 
-        labelSaldo.setText(String.format("R$ %.2f", saldo));
-        labelReceitas.setText(String.format("R$ %.2f", receitas));
-        labelDespesas.setText(String.format("R$ %.2f", despesas));
-        labelTotal.setText(String.valueOf(calculadora.getTransacoes().size()));
+        labelSaldo.setText(Dinheiro.formatar(resumo.getSaldo()));
+        labelReceitas.setText(Dinheiro.formatar(receitas));
+        labelDespesas.setText(Dinheiro.formatar(despesas));
+        labelTotal.setText(String.valueOf(resumo.getQuantidade()));
 
         // Atualizar progress bars
         double total = receitas + despesas;
@@ -631,21 +862,21 @@ public class MainApp extends Application {
             progDespesas.setProgress(0);
         }
 
-        progReceitasLabel.setText(String.format("R$ %.2f (%.0f%%)", receitas, total > 0 ? (receitas / total * 100) : 0));
-        progDespesasLabel.setText(String.format("R$ %.2f (%.0f%%)", despesas, total > 0 ? (despesas / total * 100) : 0));
+        progReceitasLabel.setText(String.format("%s (%.0f%%)", Dinheiro.formatar(receitas), total > 0 ? (receitas / total * 100) : 0));
+        progDespesasLabel.setText(String.format("%s (%.0f%%)", Dinheiro.formatar(despesas), total > 0 ? (despesas / total * 100) : 0));
 
         // Atualizar gráficos
-        atualizarGraficos();
+        atualizarGraficos(resumo, saldoAte);
     }
 
-    private void atualizarGraficos() {
+    private void atualizarGraficos(ResumoFinanceiro resumo, ToLongFunction<LocalDate> saldoAte) {
         // Gráfico de Pizza - Despesas por Categoria
-        Map<String, Double> gastosPorCategoria = new HashMap<>();
-        for (Transacao t : calculadora.getTransacoes()) {
-            if (t.getTipo().equals("Despesa")) {
-                gastosPorCategoria.merge(t.getCategoria(), t.getValor(), Double::sum);
+        Map<String, Long> gastosPorCategoria = new LinkedHashMap<>();
+        resumo.getPorCategoria().forEach((categoria, totais) -> {
+            if (totais.getDespesas() > 0) {
+                gastosPorCategoria.put(categoria, totais.getDespesas());
             }
-        }
+        });
 
         ObservableList<PieChart.Data> pieData = FXCollections.observableArrayList();
         if (gastosPorCategoria.isEmpty()) {
@@ -653,7 +884,7 @@ public class MainApp extends Application {
         } else {
             gastosPorCategoria.forEach((categoria, valor) ->
                     pieData.add(new PieChart.Data(categoria + "\nR$ " +
-                            String.format("%.2f", valor), valor)));
+                            Dinheiro.formatarSemSimbolo(valor), Dinheiro.emReais(valor))));
         }
         graficoCategoria.setData(pieData);
 
@@ -664,70 +895,81 @@ public class MainApp extends Application {
 
         XYChart.Series<String, Number> series = new XYChart.Series<>();
         series.setName("Valores");
-        series.getData().add(new XYChart.Data<>("Receitas", calcularReceitas()));
-        series.getData().add(new XYChart.Data<>("Despesas", calcularDespesas()));
+        series.getData().add(new XYChart.Data<>("Receitas", Dinheiro.emReais(resumo.getReceitas())));
+        series.getData().add(new XYChart.Data<>("Despesas", Dinheiro.emReais(resumo.getDespesas())));
 
         graficoMensal.getData().clear();
         graficoMensal.getData().add(series);
 
-        // Gráfico de Linha - Tendência (últimos 6 meses)
+        // Gráfico de Linha - Tendência (últimos meses)
         XYChart.Series<String, Number> serieLinha = new XYChart.Series<>();
         serieLinha.setName("Saldo");
 
-        // Dados simulados para demonstração
         LocalDate hoje = LocalDate.now();
-        for (int i = 5; i >= 0; i--) {
+        for (int i = MESES_TENDENCIA - 1; i >= 0; i--) {
             LocalDate mes = hoje.minusMonths(i);
             String nomeMes = mes.getMonth().name().substring(0, 3);
 
-            // Calcular saldo até aquele mês
-            double saldoMes = calculadora.getTransacoes().stream()
-                .filter(t -> !t.getData().isAfter(mes))
-                .mapToDouble(t -> t.getTipo().equals("Receita") ? t.getValor() : -t.getValor())
-                .sum();
+            // Saldo até aquele mês, direto do índice por data (sem varrer as transações)
+            long saldoMes = saldoAte.applyAsLong(mes);
 
-            serieLinha.getData().add(new XYChart.Data<>(nomeMes, saldoMes));
+            serieLinha.getData().add(new XYChart.Data<>(nomeMes, Dinheiro.emReais(saldoMes)));
         }
 
         graficoTendencia.getData().clear();
         graficoTendencia.getData().add(serieLinha);
     }
 
-    private double calcularReceitas() {
-        return calculadora.getTransacoes().stream()
-                .filter(t -> t.getTipo().equals("Receita"))
-                .mapToDouble(Transacao::getValor)
-                .sum();
-    }
-
-    private double calcularDespesas() {
-        return calculadora.getTransacoes().stream()
-                .filter(t -> t.getTipo().equals("Despesa"))
-                .mapToDouble(Transacao::getValor)
-                .sum();
+    private void filtrarTransacoes() {
+        pausaBusca.stop();
+        String texto = campoBusca.getText();
+        Tipo tipo = filtroTipo.getValue().equals("Todos os Tipos") ? null : Tipo.deTexto(filtroTipo.getValue());
+        String categoria = filtroCategoria.getValue().equals("Todas as Categorias") ? null : filtroCategoria.getValue();
+        boolean soDuplicatas = filtroDuplicatas.isSelected();
+
+        // Uma consulta nova torna as anteriores inúteis
+        long geracao = ++geracaoBusca;
+        if (buscaPendente != null) {
+            buscaPendente.cancel(false);
+        }
+        buscaPendente = executorBusca.submit(() -> {
+            int[] linhas = calculadora.buscar(texto, tipo, categoria);
+            if (soDuplicatas) {
+                linhas = calculadora.filtrarDuplicatas(linhas);
+            }
+            int[] encontradas = linhas;
+            Platform.runLater(() -> publicarBusca(geracao, encontradas));
+        });
     }
 
-    private void filtrarTransacoes() {
-        String busca = campoBusca.getText().toLowerCase();
-        String tipo = filtroTipo.getValue();
-        String categoria = filtroCategoria.getValue();
+    private void publicarBusca(long geracao, int[] linhas) {
+        // Chegou atrasada: houve outra busca ou a lista mudou depois dela
+        if (geracao != geracaoBusca) {
+            return;
+        }
 
-        ObservableList<Transacao> filtradas = FXCollections.observableArrayList(
-                calculadora.getTransacoes().stream()
-                        .filter(t -> t.getDescricao().toLowerCase().contains(busca))
-                        .filter(t -> tipo.equals("Todos os Tipos") || t.getTipo().equals(tipo))
-                        .filter(t -> categoria.equals("Todas as Categorias") || t.getCategoria().equals(categoria))
-                        .toList()
-        );
+        // Só as posições; as transações são lidas quando a tabela mostra a linha
+        transacoesVirtuais.filtrar(linhas);
+    }
 
-        tabelaTransacao.setItems(filtradas);
+    // Depois de adicionar ou remover: buscas em andamento têm posições antigas
+    private void reaplicarFiltros() {
+        if (campoBusca.getText().isEmpty() && filtroTipo.getValue().equals("Todos os Tipos")
+                && filtroCategoria.getValue().equals("Todas as Categorias") && !filtroDuplicatas.isSelected()) {
+            pausaBusca.stop();
+            geracaoBusca++;
+            transacoesVirtuais.mostrarTudo();
+        } else {
+            filtrarTransacoes();
+        }
     }
 
     private void limparFiltros() {
         campoBusca.clear();
         filtroTipo.setValue("Todos os Tipos");
         filtroCategoria.setValue("Todas as Categorias");
-        tabelaTransacao.setItems(transacoesObservable);
+        filtroDuplicatas.setSelected(false);
+        reaplicarFiltros();
     }
 
     private void adicionarTransacao() {
@@ -769,7 +1011,7 @@ public class MainApp extends Application {
         txtValor.textProperty().addListener((obs, old, novo) -> {
             if (!novo.isEmpty()) {
                 try {
-                    Double.parseDouble(novo.replace(",", "."));
+                    Dinheiro.converter(novo);
                     txtValor.getStyleClass().remove("text-field-error");
                     errorValor.setVisible(false);
                 } catch (NumberFormatException e) {
@@ -783,9 +1025,9 @@ public class MainApp extends Application {
         // Tipo
         Label lblTipo = new Label("Tipo");
         lblTipo.getStyleClass().add("form-label");
-        ComboBox<String> comboTipo = new ComboBox<>();
-        comboTipo.getItems().addAll("Receita", "Despesa");
-        comboTipo.setValue("Despesa");
+        ComboBox<Tipo> comboTipo = new ComboBox<>();
+        comboTipo.getItems().addAll(Tipo.RECEITA, Tipo.DESPESA);
+        comboTipo.setValue(Tipo.DESPESA);
         comboTipo.setTooltip(new Tooltip("Entrada ou saída de dinheiro"));
 
         // Categoria
@@ -824,7 +1066,7 @@ public class MainApp extends Application {
                         return null;
                     }
 
-                    double valor = Double.parseDouble(txtValor.getText().replace(",", "."));
+                    long valor = Dinheiro.converter(txtValor.getText());
 
                     if (valor <= 0) {
                         mostrarErro("Valor inválido", "O valor deve ser maior que zero.");
@@ -844,11 +1086,135 @@ public class MainApp extends Application {
 
         Optional<Transacao> resultado = dialog.showAndWait();
         resultado.ifPresent(transacao -> {
-            calculadora.adicionarTransacao(transacao);
-            transacoesObservable.setAll(calculadora.getTransacoes());
-            atualizarInterface();
+            int ano = transacao.getData().getYear();
+            if (calculadora.getAnosNaoCarregados().contains(ano)) {
+                // O ano está só no disco: é lido em segundo plano antes de a transação entrar
+                carregarAno(ano, () -> incluir(transacao));
+            } else {
+                incluir(transacao);
+            }
+        });
+    }
+
+    private void incluir(Transacao transacao) {
+        boolean duplicata = calculadora.isDuplicata(transacao);
+        calculadora.adicionarTransacao(transacao);
+        reaplicarFiltros();
+        atualizarInterface();
+        if (duplicata) {
+            mostrarAviso("Possível duplicata", "Transação adicionada, mas já havia outra com a mesma data, valor e descrição.");
+        } else {
             mostrarSucesso("Transação adicionada com sucesso!");
+        }
+    }
+
+    // Lê e interpreta os arquivos e procura as duplicatas em segundo plano; as transações
+    // entram de uma vez só (um aviso para a tabela, um salvamento)
+    private void importarExtratos() {
+        FileChooser seletor = new FileChooser();
+        seletor.setTitle("Importar extratos");
+        seletor.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Extratos (CSV, OFX)", "*.csv", "*.ofx", "*.qfx", "*.txt"),
+                new FileChooser.ExtensionFilter("Todos os arquivos", "*.*"));
+        List<File> arquivos = seletor.showOpenMultipleDialog(tabelaTransacao.getScene().getWindow());
+        if (arquivos == null || arquivos.isEmpty()) {
+            return;
+        }
+
+        ImportadorDeExtratos importador = new ImportadorDeExtratos(RegrasDeCategoria.carregar());
+        AtomicInteger repetidas = new AtomicInteger();
+        Task<List<Transacao>> importacao = new Task<>() {
+            @Override
+            protected List<Transacao> call() throws IOException {
+                List<Transacao> lidas = importador.importar(arquivos.stream().map(File::toPath).toList());
+                // Reimportar o mesmo extrato (ou um com período sobreposto) não duplica linhas
+                repetidas.set(calculadora.adicionarSemDuplicatas(lidas));
+                return lidas;
+            }
+        };
+        importacao.setOnSucceeded(e -> {
+            definirOcupado(false);
+            List<Transacao> lidas = importacao.getValue();
+            int ignoradasPorDuplicata = repetidas.get();
+            reaplicarFiltros();
+            atualizarInterface();
+            String ignoradas = ignoradasPorDuplicata == 0 ? ""
+                    : "\n" + ignoradasPorDuplicata + " já existente(s) ignorada(s).";
+            if (importador.getLinhasInvalidas() > 0) {
+                ignoradas += "\n" + importador.getLinhasInvalidas() + " linha(s) inválida(s) ignorada(s).";
+            }
+            mostrarSucesso((lidas.size() - ignoradasPorDuplicata) + " transação(ões) importada(s)." + ignoradas);
         });
+        importacao.setOnFailed(e -> {
+            definirOcupado(false);
+            mostrarErro("Erro ao importar", importacao.getException().getMessage());
+        });
+
+        definirOcupado(true);
+        Thread thread = new Thread(importacao, "importacao");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Lê o ano mais recente entre os que ficaram só no disco em segundo plano; as linhas entram
+    // na tabela de uma vez, no fim. É pedido pelo botão, e não pela rolagem, porque a tabela
+    // segue a ordem do arquivo, não a das datas.
+    private void carregarAnoAnterior() {
+        SortedSet<Integer> naoCarregados = calculadora.getAnosNaoCarregados();
+        if (naoCarregados.isEmpty()) {
+            return;
+        }
+        carregarAno(naoCarregados.last(), () -> { });
+    }
+
+    // Lê o ano em segundo plano e, já na thread da interface, segue com 'depois'
+    private void carregarAno(int ano, Runnable depois) {
+        Task<Integer> leitura = new Task<>() {
+            @Override
+            protected Integer call() {
+                return calculadora.carregarAno(ano);
+            }
+        };
+        leitura.setOnSucceeded(e -> {
+            definirOcupado(false);
+            reaplicarFiltros();
+            atualizarInterface();
+            depois.run();
+        });
+        leitura.setOnFailed(e -> {
+            definirOcupado(false);
+            mostrarErro("Erro ao carregar " + ano, leitura.getException().getMessage());
+        });
+
+        definirOcupado(true);
+        Thread thread = new Thread(leitura, "carregamento-" + ano);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Passa as regras por todo o livro-caixa em segundo plano; a tabela é avisada uma vez no fim
+    private void aplicarRegras() {
+        Task<Integer> recategorizacao = new Task<>() {
+            @Override
+            protected Integer call() {
+                return calculadora.recategorizar(RegrasDeCategoria.carregar());
+            }
+        };
+        recategorizacao.setOnSucceeded(e -> {
+            definirOcupado(false);
+            reaplicarFiltros();
+            atualizarInterface();
+            mostrarSucesso(recategorizacao.getValue() + " transação(ões) mudaram de categoria.");
+        });
+        recategorizacao.setOnFailed(e -> {
+            definirOcupado(false);
+            mostrarErro("Erro ao aplicar as regras", recategorizacao.getException().getMessage());
+        });
+
+        definirOcupado(true);
+        Thread thread = new Thread(recategorizacao, "recategorizacao");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     private void editarTransacao() {
@@ -870,13 +1236,18 @@ public class MainApp extends Application {
         Alert confirmacao = new Alert(Alert.AlertType.CONFIRMATION);
         confirmacao.setTitle("Confirmar Exclusão");
         confirmacao.setHeaderText("Deseja realmente remover esta transação?");
-        confirmacao.setContentText(String.format("%s - R$ %.2f",
-                selecionada.getDescricao(), selecionada.getValor()));
+        confirmacao.setContentText(selecionada.getDescricao() + " - " +
+                Dinheiro.formatar(selecionada.getValorCentavos()));
 
         confirmacao.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                calculadora.getTransacoes().remove(selecionada);
-                transacoesObservable.setAll(calculadora.getTransacoes());
+                // Posição na tabela (filtrada ou não) para posição na calculadora
+                int posicao = tabelaTransacao.getSelectionModel().getSelectedIndex();
+                if (posicao < 0) {
+                    return;
+                }
+                calculadora.removerTransacao(transacoesVirtuais.linha(posicao));
+                reaplicarFiltros();
                 atualizarInterface();
                 mostrarSucesso("Transação removida com sucesso!");
             }
@@ -915,8 +1286,162 @@ public class MainApp extends Application {
         alert.showAndWait();
     }
 
-    private void salvarAoFechar() {
-        GerenciadorDeArquivos.salvar(calculadora.getTransacoes());
+    // Registra cada mudança da calculadora no diário (a tabela é avisada por TransacoesVirtuais)
+    private class EspelhoDaCalculadora implements OuvinteDeCalculadora {
+        @Override
+        public void adicionadas(int inicio, List<Transacao> adicionadas) {
+            if (diario != null) {
+                try {
+                    for (Transacao t : adicionadas) {
+                        diario.registrarAdicao(t);
+                    }
+                } catch (IOException e) {
+                    desativarDiario(e);
+                }
+            }
+        }
+
+        @Override
+        public void removida(int indice, Transacao removida) {
+            if (diario != null) {
+                try {
+                    diario.registrarRemocao(indice, removida);
+                } catch (IOException e) {
+                    desativarDiario(e);
+                }
+            }
+        }
+
+        @Override
+        public void substituida(int indice, Transacao anterior, Transacao nova) {
+            if (diario != null) {
+                try {
+                    diario.registrarEdicao(indice, nova);
+                } catch (IOException e) {
+                    desativarDiario(e);
+                }
+            }
+        }
+
+        @Override
+        public void recategorizadas(int[] indices) {
+            if (diario != null) {
+                try {
+                    List<Transacao> transacoes = calculadora.getTransacoes();
+                    for (int indice : indices) {
+                        diario.registrarEdicao(indice, transacoes.get(indice));
+                    }
+                } catch (IOException e) {
+                    desativarDiario(e);
+                }
+            }
+        }
+    }
+
+    // Repassa os avisos da calculadora na thread da interface: importação, regras e anos
+    // antigos alteram a calculadora em segundo plano, e a tabela e o diário só podem ser
+    // mexidos por ela. Enquanto isso, definirOcupado impede que a interface altere a
+    // calculadora, então os avisos pendentes chegam na ordem e antes do onSucceeded da tarefa.
+    private static class NaThreadDaInterface implements OuvinteDeCalculadora {
+        private final OuvinteDeCalculadora destino;
+
+        NaThreadDaInterface(OuvinteDeCalculadora destino) {
+            this.destino = destino;
+        }
+
+        @Override
+        public void adicionadas(int inicio, List<Transacao> adicionadas) {
+            repassar(() -> destino.adicionadas(inicio, adicionadas));
+        }
+
+        @Override
+        public void removida(int indice, Transacao removida) {
+            repassar(() -> destino.removida(indice, removida));
+        }
+
+        @Override
+        public void substituida(int indice, Transacao anterior, Transacao nova) {
+            repassar(() -> destino.substituida(indice, anterior, nova));
+        }
+
+        @Override
+        public void recategorizadas(int[] indices) {
+            repassar(() -> destino.recategorizadas(indices));
+        }
+
+        private static void repassar(Runnable aviso) {
+            if (Platform.isFxApplicationThread()) {
+                aviso.run();
+            } else {
+                Platform.runLater(aviso);
+            }
+        }
+    }
+
+    // Botões e atalhos de teclado ficam desligados durante uma tarefa em segundo plano: a
+    // interface não altera a calculadora nem espera pela trava dela até a tarefa acabar
+    private void definirOcupado(boolean ocupado) {
+        this.ocupado = ocupado;
+        barraBotoes.setDisable(ocupado);
+    }
+
+    // Se o diário falhar, volta a salvar o arquivo inteiro (em segundo plano)
+    private void desativarDiario(IOException e) {
+        mostrarErro("Erro ao gravar", "Não foi possível gravar no diário: " + e.getMessage());
+        try {
+            diario.close();
+        } catch (IOException ignorada) {
+            // o salvamento completo cobre o que faltou
+        }
+        diario = null;
+        iniciarSalvamentoAutomatico();
+    }
+
+    private void iniciarSalvamentoAutomatico() {
+        salvamentoAutomatico = new SalvamentoAutomatico(calculadora);
+        calculadora.adicionarOuvinte(salvamentoAutomatico);
+        if (calculadora.isAlterada()) {
+            salvamentoAutomatico.agendar();
+        }
+    }
+
+    // Devolve um futuro que termina quando tudo estiver gravado; o salvamento em si roda fora
+    // da thread da interface
+    private CompletableFuture<Void> salvarAoFechar() {
+        // Com o carregamento incompleto a calculadora não tem tudo; salvar apagaria o resto
+        if (carregando) {
+            System.out.println("Carregamento não concluído; nada foi salvo.");
+            return CompletableFuture.completedFuture(null);
+        }
+        // Com o diário tudo já está gravado; só falta descarregar o último lote
+        if (diario != null) {
+            try {
+                diario.close();
+                return CompletableFuture.completedFuture(null);
+            } catch (IOException e) {
+                System.out.println("Erro ao fechar o diário: " + e.getMessage());
+            }
+        }
+
+        mostrarSalvando();
+        // Espera o salvamento em andamento e grava o que ainda estiver pendente
+        if (salvamentoAutomatico != null) {
+            return salvamentoAutomatico.fechar();
+        }
+        // Operações reaplicadas do diário não estão em getMesesAlterados(): refaz todos os resumos
+        Calculadora.Copia copia = calculadora.copiar();
+        return CompletableFuture.runAsync(() -> GerenciadorDeArquivos.salvar(copia.getTransacoes(),
+                GerenciadorDeArquivos.isDiarioAtivo() ? null : copia.getMesesAlterados(), copia.getAnosNaoCarregados()));
+    }
+
+    private void mostrarSalvando() {
+        definirOcupado(true);
+        barraBusca.setDisable(true);
+        labelCarregamento.setText("Salvando alterações...");
+        progressoCarregamento.progressProperty().unbind();
+        progressoCarregamento.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+        barraCarregamento.setVisible(true);
+        barraCarregamento.setManaged(true);
     }
 
     public static void main(String[] args) {
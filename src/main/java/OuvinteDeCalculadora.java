@@ -0,0 +1,19 @@
+import java.util.List;
+
+// Recebe cada mudança da Calculadora com as posições afetadas, para quem espelha a
+// lista (tabela, diário) aplicar só a diferença em vez de recopiar tudo.
+// Chamado na thread que fez a alteração, ainda dentro dela.
+public interface OuvinteDeCalculadora {
+
+    // As transações passaram a ocupar as posições inicio .. inicio + adicionadas.size() - 1
+    void adicionadas(int inicio, List<Transacao> adicionadas);
+
+    // A transação da posição foi removida; as seguintes andaram uma posição para trás
+    void removida(int indice, Transacao removida);
+
+    // A transação da posição foi trocada por outra
+    void substituida(int indice, Transacao anterior, Transacao nova);
+
+    // Várias transações mudaram só de categoria de uma vez (recategorização); índices em ordem crescente
+    void recategorizadas(int[] indices);
+}
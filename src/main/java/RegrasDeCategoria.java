@@ -0,0 +1,393 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+// Escolhe a categoria pela descrição, valor e data. As regras ficam em
+// regras-de-categoria.txt na pasta de dados, uma por linha (a primeira que casar vence):
+//   mercado;Alimentação                              palavra contida na descrição
+//   re:^pix .*joao;Transferências                    expressão regular
+//   uber;valor:0..80;Transporte                      várias condições: todas precisam valer
+//   valor:1000..;data:2024-01-01..2024-12-31;Grandes  faixa de valor (reais) e de datas
+// Palavras e expressões valem sobre a descrição normalizada (minúsculas, sem acento); as
+// faixas aceitam um dos lados vazio. Linhas com # são comentários. Sem o arquivo valem as
+// regras padrão abaixo.
+//
+// Ao ser montado, o conjunto vira um autômato só (Aho-Corasick) com todas as palavras e uma
+// expressão combinada que descarta de uma vez as descrições sem nenhuma expressão: cada
+// descrição é lida uma vez, não uma por regra. Só leitura depois de montado, então pode ser
+// usado por várias threads ao mesmo tempo.
+public class RegrasDeCategoria {
+    static final String NOME_ARQUIVO = "regras-de-categoria.txt";
+    private static final String CATEGORIA_PADRAO = "Outros";
+
+    private static final String[][] PADRAO = {
+            {"mercado", "Alimentação"}, {"padaria", "Alimentação"}, {"restaurante", "Alimentação"},
+            {"ifood", "Alimentação"}, {"acougue", "Alimentação"}, {"lanchonete", "Alimentação"},
+            {"uber", "Transporte"}, {"posto", "Transporte"}, {"combustivel", "Transporte"},
+            {"metro", "Transporte"}, {"onibus", "Transporte"}, {"estacionamento", "Transporte"},
+            {"farmacia", "Saúde"}, {"drogaria", "Saúde"}, {"consulta", "Saúde"}, {"academia", "Saúde"},
+            {"cinema", "Lazer"}, {"streaming", "Lazer"}, {"netflix", "Lazer"}, {"spotify", "Lazer"},
+            {"mensalidade", "Educação"}, {"curso", "Educação"}, {"livraria", "Educação"},
+            {"salario", "Salário"}, {"adiantamento", "Salário"}};
+
+    // Uma posição por regra, na ordem em que foram adicionadas
+    private final List<String> palavras = new ArrayList<>();
+    private final List<Pattern> expressoes = new ArrayList<>();
+    private final ListaDeInteiros categorias = new ListaDeInteiros();
+    private long[] valorMinimo = new long[8];
+    private long[] valorMaximo = new long[8];
+    private int[] diaInicial = new int[8];
+    private int[] diaFinal = new int[8];
+
+    // Montado na primeira consulta e de novo depois de cada regra adicionada
+    private volatile Automato automato;
+
+    public RegrasDeCategoria adicionar(String palavra, String categoria) {
+        return adicionar(palavra, null, Long.MIN_VALUE, Long.MAX_VALUE, null, null, categoria);
+    }
+
+    // Regra com qualquer combinação de condições; null (ou faixa aberta) não restringe
+    public synchronized RegrasDeCategoria adicionar(String palavra, String expressao, long valorMinimoCentavos,
+                                                    long valorMaximoCentavos, LocalDate de, LocalDate ate,
+                                                    String categoria) {
+        // Compila antes de mexer nas listas: uma expressão inválida não deixa regra pela metade
+        Pattern padrao = expressao == null ? null : Pattern.compile(expressao, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        int categoriaId = Categorias.id(categoria.trim());
+        int regra = palavras.size();
+        if (regra == valorMinimo.length) {
+            valorMinimo = Arrays.copyOf(valorMinimo, regra * 2);
+            valorMaximo = Arrays.copyOf(valorMaximo, regra * 2);
+            diaInicial = Arrays.copyOf(diaInicial, regra * 2);
+            diaFinal = Arrays.copyOf(diaFinal, regra * 2);
+        }
+        String normalizada = palavra == null ? null : IndiceDeBusca.normalizar(palavra.trim());
+        palavras.add(normalizada == null || normalizada.isEmpty() ? null : normalizada);
+        expressoes.add(padrao);
+        valorMinimo[regra] = valorMinimoCentavos;
+        valorMaximo[regra] = valorMaximoCentavos;
+        diaInicial[regra] = de == null ? Integer.MIN_VALUE : (int) de.toEpochDay();
+        diaFinal[regra] = ate == null ? Integer.MAX_VALUE : (int) ate.toEpochDay();
+        categorias.adicionar(categoriaId);
+        automato = null;
+        return this;
+    }
+
+    public int getQuantidade() {
+        return palavras.size();
+    }
+
+    // Categoria da primeira regra que casar, ou "Outros"
+    public String categorizar(String descricao, long valorCentavos, LocalDate data) {
+        int categoria = categorizarId(descricao, valorCentavos, data);
+        return categoria < 0 ? CATEGORIA_PADRAO : Categorias.nome(categoria);
+    }
+
+    // Id (em Categorias) da categoria da primeira regra que casar, ou -1
+    public int categorizarId(String descricao, long valorCentavos, LocalDate data) {
+        return escolher(regrasPorTexto(IndiceDeBusca.normalizar(descricao)), valorCentavos, (int) data.toEpochDay());
+    }
+
+    // Regras (bits, na ordem das regras) cujas condições de texto valem para a descrição já
+    // normalizada. Separado de escolher() para quem tem muitas linhas com a mesma descrição
+    // calcular isto uma vez por descrição.
+    public long[] regrasPorTexto(String normalizada) {
+        return compilar().regrasPorTexto(normalizada);
+    }
+
+    // Categoria da primeira regra entre as candidatas cujas faixas de valor e data valem, ou -1
+    public int escolher(long[] candidatas, long valorCentavos, int dia) {
+        for (int bloco = 0; bloco < candidatas.length; bloco++) {
+            long bits = candidatas[bloco];
+            while (bits != 0) {
+                int regra = bloco * 64 + Long.numberOfTrailingZeros(bits);
+                if (valorCentavos >= valorMinimo[regra] && valorCentavos <= valorMaximo[regra]
+                        && dia >= diaInicial[regra] && dia <= diaFinal[regra]) {
+                    return categorias.obter(regra);
+                }
+                bits &= bits - 1;
+            }
+        }
+        return -1;
+    }
+
+    private Automato compilar() {
+        Automato atual = automato;
+        if (atual == null) {
+            synchronized (this) {
+                if (automato == null) {
+                    automato = new Automato(palavras, expressoes);
+                }
+                atual = automato;
+            }
+        }
+        return atual;
+    }
+
+    public static RegrasDeCategoria padrao() {
+        RegrasDeCategoria regras = new RegrasDeCategoria();
+        for (String[] regra : PADRAO) {
+            regras.adicionar(regra[0], regra[1]);
+        }
+        return regras;
+    }
+
+    // Lê o arquivo de regras da pasta de dados; sem ele, as regras padrão.
+    // Linhas que não podem ser interpretadas são avisadas e ignoradas.
+    public static RegrasDeCategoria carregar() {
+        RegrasDeCategoria regras = new RegrasDeCategoria();
+        try (BufferedReader br = Files.newBufferedReader(GerenciadorDeArquivos.caminho(NOME_ARQUIVO), StandardCharsets.UTF_8)) {
+            String linha;
+            int numero = 0;
+            while ((linha = br.readLine()) != null) {
+                numero++;
+                if (linha.isBlank() || linha.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    adicionarLinha(regras, linha);
+                } catch (IllegalArgumentException | DateTimeException e) {
+                    System.out.println("Regra de categoria inválida na linha " + numero + ": " + e.getMessage());
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return padrao();
+        } catch (IOException e) {
+            System.out.println("Erro ao ler as regras de categoria: " + e.getMessage());
+            return padrao();
+        }
+        return regras;
+    }
+
+    private static void adicionarLinha(RegrasDeCategoria regras, String linha) {
+        String[] partes = linha.split(";");
+        if (partes.length < 2 || partes[partes.length - 1].isBlank()) {
+            throw new IllegalArgumentException("falta a categoria");
+        }
+        String palavra = null;
+        String expressao = null;
+        long minimo = Long.MIN_VALUE;
+        long maximo = Long.MAX_VALUE;
+        LocalDate de = null;
+        LocalDate ate = null;
+        for (int i = 0; i < partes.length - 1; i++) {
+            String condicao = partes[i].trim();
+            if (condicao.startsWith("re:")) {
+                expressao = condicao.substring(3);
+            } else if (condicao.startsWith("valor:")) {
+                String[] faixa = faixa(condicao.substring(6));
+                minimo = faixa[0].isEmpty() ? Long.MIN_VALUE : Dinheiro.converter(faixa[0]);
+                maximo = faixa[1].isEmpty() ? Long.MAX_VALUE : Dinheiro.converter(faixa[1]);
+            } else if (condicao.startsWith("data:")) {
+                String[] faixa = faixa(condicao.substring(5));
+                de = faixa[0].isEmpty() ? null : LocalDate.parse(faixa[0]);
+                ate = faixa[1].isEmpty() ? null : LocalDate.parse(faixa[1]);
+            } else {
+                palavra = condicao.startsWith("palavra:") ? condicao.substring(8) : condicao;
+            }
+        }
+        try {
+            regras.adicionar(palavra, expressao, minimo, maximo, de, ate, partes[partes.length - 1]);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("expressão regular inválida: " + e.getDescription());
+        }
+    }
+
+    // "a..b", "a.." ou "..b"
+    private static String[] faixa(String texto) {
+        int separador = texto.indexOf("..");
+        if (separador < 0) {
+            throw new IllegalArgumentException("faixa sem '..': " + texto);
+        }
+        return new String[]{texto.substring(0, separador).trim(), texto.substring(separador + 2).trim()};
+    }
+
+    // Condições de texto de todas as regras compiladas juntas
+    private static class Automato {
+        // Classe de cada caractere nas palavras (0 = caractere que não aparece em nenhuma)
+        private final char[] classes = new char[Character.MAX_VALUE + 1];
+        private final int quantidadeDeClasses;
+        // Transições já resolvidas (com as falhas embutidas): proximo[estado * classes + classe]
+        private final int[] proximo;
+        // Regras cuja palavra termina no estado (incluindo as herdadas pela falha); null = nenhuma
+        private final long[][] saidas;
+
+        // Regras sem condição de texto (sempre candidatas) e regras com expressão
+        private final long[] semTexto;
+        private final long[] comExpressao;
+        private final long[] comPalavra;
+        private final Pattern[] expressoes;
+        // Alternativa de todas as expressões: sem casar ela, nenhuma casa
+        private final Pattern combinada;
+        private final int blocos;
+
+        Automato(List<String> palavras, List<Pattern> expressoesDasRegras) {
+            int regras = palavras.size();
+            blocos = Math.max(1, (regras + 63) / 64);
+            semTexto = new long[blocos];
+            comExpressao = new long[blocos];
+            comPalavra = new long[blocos];
+            expressoes = expressoesDasRegras.toArray(new Pattern[0]);
+
+            int classe = 0;
+            for (String palavra : palavras) {
+                if (palavra != null) {
+                    for (int i = 0; i < palavra.length(); i++) {
+                        if (classes[palavra.charAt(i)] == 0) {
+                            classes[palavra.charAt(i)] = (char) ++classe;
+                        }
+                    }
+                }
+            }
+            quantidadeDeClasses = classe + 1;
+
+            // Trie: estado 0 é a raiz, -1 = sem transição ainda
+            ListaDeInteiros trie = new ListaDeInteiros(quantidadeDeClasses * 16);
+            List<long[]> saidasDaTrie = new ArrayList<>();
+            novoEstado(trie, saidasDaTrie);
+            StringBuilder alternativas = new StringBuilder();
+            boolean combinavel = true;
+            for (int regra = 0; regra < regras; regra++) {
+                String palavra = palavras.get(regra);
+                Pattern expressao = expressoes[regra];
+                if (palavra == null && expressao == null) {
+                    marcar(semTexto, regra);
+                }
+                if (expressao != null) {
+                    marcar(comExpressao, regra);
+                    // Grupos numerados mudariam de número dentro da alternativa
+                    combinavel &= !expressao.pattern().matches("(?s).*\\\\([1-9]|k<).*");
+                    alternativas.append(alternativas.length() == 0 ? "" : "|").append("(?:").append(expressao.pattern()).append(')');
+                }
+                if (palavra != null) {
+                    marcar(comPalavra, regra);
+                    int estado = 0;
+                    for (int i = 0; i < palavra.length(); i++) {
+                        int posicao = estado * quantidadeDeClasses + classes[palavra.charAt(i)];
+                        int seguinte = trie.obter(posicao);
+                        if (seguinte < 0) {
+                            seguinte = novoEstado(trie, saidasDaTrie);
+                            trie.definir(posicao, seguinte);
+                        }
+                        estado = seguinte;
+                    }
+                    long[] saida = saidasDaTrie.get(estado);
+                    if (saida == null) {
+                        saida = new long[blocos];
+                        saidasDaTrie.set(estado, saida);
+                    }
+                    marcar(saida, regra);
+                }
+            }
+            combinada = combinavel && alternativas.length() > 0 ? combinar(alternativas.toString()) : null;
+
+            // Em largura: a falha de um estado já está pronta quando ele é visitado
+            proximo = trie.paraArray();
+            saidas = saidasDaTrie.toArray(new long[0][]);
+            int[] falha = new int[saidas.length];
+            ArrayDeque<Integer> fila = new ArrayDeque<>();
+            for (int c = 0; c < quantidadeDeClasses; c++) {
+                int seguinte = proximo[c];
+                if (seguinte < 0) {
+                    proximo[c] = 0;
+                } else {
+                    fila.add(seguinte);
+                }
+            }
+            while (!fila.isEmpty()) {
+                int estado = fila.poll();
+                long[] herdada = saidas[falha[estado]];
+                if (herdada != null) {
+                    if (saidas[estado] == null) {
+                        saidas[estado] = herdada;
+                    } else {
+                        long[] juntas = saidas[estado].clone();
+                        for (int b = 0; b < blocos; b++) {
+                            juntas[b] |= herdada[b];
+                        }
+                        saidas[estado] = juntas;
+                    }
+                }
+                for (int c = 0; c < quantidadeDeClasses; c++) {
+                    int posicao = estado * quantidadeDeClasses + c;
+                    int seguinte = proximo[posicao];
+                    int pelaFalha = proximo[falha[estado] * quantidadeDeClasses + c];
+                    if (seguinte < 0) {
+                        proximo[posicao] = pelaFalha;
+                    } else {
+                        falha[seguinte] = pelaFalha;
+                        fila.add(seguinte);
+                    }
+                }
+            }
+        }
+
+        // Cada expressão compila sozinha, mas juntas podem não compilar (ex.: o mesmo grupo
+        // nomeado em duas regras); sem a alternativa, todas são testadas uma a uma
+        private static Pattern combinar(String alternativas) {
+            try {
+                return Pattern.compile(alternativas, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+            } catch (PatternSyntaxException e) {
+                return null;
+            }
+        }
+
+        private int novoEstado(ListaDeInteiros trie, List<long[]> saidasDaTrie) {
+            for (int c = 0; c < quantidadeDeClasses; c++) {
+                trie.adicionar(-1);
+            }
+            saidasDaTrie.add(null);
+            return saidasDaTrie.size() - 1;
+        }
+
+        long[] regrasPorTexto(String normalizada) {
+            long[] palavrasEncontradas = new long[blocos];
+            int estado = 0;
+            for (int i = 0; i < normalizada.length(); i++) {
+                estado = proximo[estado * quantidadeDeClasses + classes[normalizada.charAt(i)]];
+                long[] saida = saidas[estado];
+                if (saida != null) {
+                    for (int b = 0; b < blocos; b++) {
+                        palavrasEncontradas[b] |= saida[b];
+                    }
+                }
+            }
+
+            long[] candidatas = semTexto.clone();
+            boolean algumaExpressao = false;
+            for (int b = 0; b < blocos; b++) {
+                // Com palavra que apareceu, ou só com expressão: a expressão ainda decide
+                long dependemDaExpressao = comExpressao[b] & (palavrasEncontradas[b] | ~comPalavra[b]);
+                candidatas[b] |= palavrasEncontradas[b] & ~comExpressao[b];
+                algumaExpressao |= dependemDaExpressao != 0;
+            }
+            if (!algumaExpressao || (combinada != null && !combinada.matcher(normalizada).find())) {
+                return candidatas;
+            }
+            for (int b = 0; b < blocos; b++) {
+                long bits = comExpressao[b] & (palavrasEncontradas[b] | ~comPalavra[b]);
+                while (bits != 0) {
+                    int regra = b * 64 + Long.numberOfTrailingZeros(bits);
+                    if (expressoes[regra].matcher(normalizada).find()) {
+                        candidatas[b] |= 1L << regra;
+                    }
+                    bits &= bits - 1;
+                }
+            }
+            return candidatas;
+        }
+
+        private static void marcar(long[] bits, int regra) {
+            bits[regra >>> 6] |= 1L << regra;
+        }
+    }
+}
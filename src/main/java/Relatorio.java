@@ -0,0 +1,229 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+
+// Relatório sem interface, para rodar em servidor: lê o livro-caixa uma vez (sem guardá-lo
+// na memória) e imprime saldo, totais por categoria e por mês em CSV ou JSON. Uso:
+//   java -cp target/classes Relatorio [--saida=csv|json] [--formato=texto|binario] [--diretorio=pasta]
+// Com --agrupar (categoria, tipo, semana, mes, ano; até duas, separadas por vírgula) e os filtros
+// --de, --ate (AAAA-MM-DD), --tipo, --categoria e --texto, imprime o resultado de uma Consulta.
+// As mensagens de leitura vão para a saída de erro; a saída padrão fica só com o relatório.
+public class Relatorio {
+    private String saida = "csv";
+
+    // Só existe se alguma opção de consulta (--agrupar, --de, --tipo...) foi informada
+    private Consulta consulta;
+
+    public static void main(String[] args) throws IOException {
+        Relatorio relatorio = new Relatorio();
+        try {
+            relatorio.lerOpcoes(args);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        relatorio.gerar();
+    }
+
+    private void gerar() throws IOException {
+        PrintStream padrao = System.out;
+        System.setOut(System.err);
+        long inicio = System.nanoTime();
+        Agregador agregador = null;
+        Consulta.Resultado resultado = null;
+        if (consulta == null) {
+            agregador = GerenciadorDeArquivos.agregar(Agregador::new, Agregador::adicionar, Agregador::juntar);
+        } else {
+            resultado = GerenciadorDeArquivos.agregar(consulta::novaAcumulacao, Consulta.Acumulacao::adicionar,
+                    Consulta.Acumulacao::juntar).getResultado();
+        }
+        System.out.printf("Arquivo lido em %.1f s%n", (System.nanoTime() - inicio) / 1e9);
+        System.setOut(padrao);
+
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(padrao, StandardCharsets.UTF_8));
+        if (resultado != null) {
+            if (saida.equals("json")) {
+                escreverJson(resultado, escritor);
+            } else {
+                escreverCsv(resultado, escritor);
+            }
+        } else if (saida.equals("json")) {
+            escreverJson(agregador, escritor);
+        } else {
+            escreverCsv(agregador, escritor);
+        }
+        escritor.flush();
+    }
+
+    // Aplica --formato e --diretorio no GerenciadorDeArquivos; o resto monta a saída e a consulta
+    private void lerOpcoes(String[] args) {
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            String chave = igual < 0 ? arg : arg.substring(0, igual);
+            String original = igual < 0 ? "" : arg.substring(igual + 1);
+            String valor = original.toLowerCase(Locale.ROOT);
+            switch (chave) {
+                case "--saida" -> {
+                    if (!valor.equals("csv") && !valor.equals("json")) {
+                        throw new IllegalArgumentException("Saída inválida: " + valor + " (use csv ou json)");
+                    }
+                    saida = valor;
+                }
+                case "--formato" -> {
+                    if (!valor.equals("texto") && !valor.equals("binario")) {
+                        throw new IllegalArgumentException("Formato inválido: " + valor + " (use texto ou binario)");
+                    }
+                    GerenciadorDeArquivos.setFormato(FormatoDeArquivo.valueOf(valor.toUpperCase(Locale.ROOT)));
+                }
+                case "--diretorio" -> GerenciadorDeArquivos.setDiretorio(Path.of(original));
+                case "--agrupar" -> {
+                    String[] nomes = valor.split(",");
+                    Consulta.Dimensao[] dimensoes = new Consulta.Dimensao[nomes.length];
+                    for (int i = 0; i < nomes.length; i++) {
+                        dimensoes[i] = dimensao(nomes[i].trim());
+                    }
+                    consulta().agruparPor(dimensoes);
+                }
+                case "--de" -> consulta().entre(LocalDate.parse(original), consulta.getFim());
+                case "--ate" -> consulta().entre(consulta.getInicio(), LocalDate.parse(original));
+                case "--tipo" -> consulta().doTipo(Tipo.deTexto(original));
+                case "--categoria" -> consulta().daCategoria(original);
+                case "--texto" -> consulta().comTexto(original);
+                default -> throw new IllegalArgumentException("Opção inválida: " + arg);
+            }
+        }
+    }
+
+    private Consulta consulta() {
+        if (consulta == null) {
+            consulta = new Consulta();
+        }
+        return consulta;
+    }
+
+    private static Consulta.Dimensao dimensao(String nome) {
+        for (Consulta.Dimensao dimensao : Consulta.Dimensao.values()) {
+            if (dimensao.getNome().equals(nome)) {
+                return dimensao;
+            }
+        }
+        throw new IllegalArgumentException("Agrupamento inválido: " + nome + " (use categoria, tipo, semana, mes ou ano)");
+    }
+
+    // Uma linha por grupo: as chaves e depois os valores em reais
+    static void escreverCsv(Consulta.Resultado resultado, Writer saida) throws IOException {
+        for (Consulta.Dimensao dimensao : resultado.getDimensoes()) {
+            saida.write(dimensao.getNome() + ",");
+        }
+        saida.write("receitas,despesas,saldo,soma,quantidade,media\n");
+        for (Consulta.Grupo grupo : resultado.getGrupos()) {
+            for (int i = 0; i < resultado.getDimensoes().size(); i++) {
+                saida.write(textoCsv(grupo.getChave(i).toString()) + ",");
+            }
+            saida.write(Dinheiro.paraArquivo(grupo.getReceitas()) + "," + Dinheiro.paraArquivo(grupo.getDespesas()) + ","
+                    + Dinheiro.paraArquivo(grupo.getSaldo()) + "," + Dinheiro.paraArquivo(grupo.getSoma()) + ","
+                    + grupo.getQuantidade() + "," + Dinheiro.paraArquivo(grupo.getMedia()) + "\n");
+        }
+    }
+
+    static void escreverJson(Consulta.Resultado resultado, Writer saida) throws IOException {
+        saida.write("{\n  \"grupos\": [");
+        String separador = "\n    ";
+        for (Consulta.Grupo grupo : resultado.getGrupos()) {
+            saida.write(separador + "{");
+            for (int i = 0; i < resultado.getDimensoes().size(); i++) {
+                Object chave = grupo.getChave(i);
+                saida.write("\"" + resultado.getDimensoes().get(i).getNome() + "\": "
+                        + (chave instanceof Integer ? chave.toString() : textoJson(chave.toString())) + ", ");
+            }
+            saida.write("\"receitas\": " + Dinheiro.paraArquivo(grupo.getReceitas())
+                    + ", \"despesas\": " + Dinheiro.paraArquivo(grupo.getDespesas())
+                    + ", \"saldo\": " + Dinheiro.paraArquivo(grupo.getSaldo())
+                    + ", \"soma\": " + Dinheiro.paraArquivo(grupo.getSoma())
+                    + ", \"quantidade\": " + grupo.getQuantidade()
+                    + ", \"media\": " + Dinheiro.paraArquivo(grupo.getMedia()) + "}");
+            separador = ",\n    ";
+        }
+        saida.write("\n  ]\n}\n");
+    }
+
+    // Uma tabela só: secao (total, categoria ou mes), chave e os valores em reais
+    static void escreverCsv(Agregador agregador, Writer saida) throws IOException {
+        saida.write("secao,chave,receitas,despesas,saldo,quantidade\n");
+        linhaCsv(saida, "total", "", agregador.getTotal());
+        for (Map.Entry<String, Agregador.Soma> categoria : agregador.getPorCategoria().entrySet()) {
+            linhaCsv(saida, "categoria", categoria.getKey(), categoria.getValue());
+        }
+        for (Map.Entry<YearMonth, Agregador.Soma> mes : agregador.getPorMes().entrySet()) {
+            linhaCsv(saida, "mes", mes.getKey().toString(), mes.getValue());
+        }
+    }
+
+    static void escreverJson(Agregador agregador, Writer saida) throws IOException {
+        saida.write("{\n  \"total\": ");
+        objetoJson(saida, null, null, agregador.getTotal());
+        saida.write(",\n  \"categorias\": [");
+        String separador = "\n    ";
+        for (Map.Entry<String, Agregador.Soma> categoria : agregador.getPorCategoria().entrySet()) {
+            saida.write(separador);
+            objetoJson(saida, "categoria", categoria.getKey(), categoria.getValue());
+            separador = ",\n    ";
+        }
+        saida.write("\n  ],\n  \"meses\": [");
+        separador = "\n    ";
+        for (Map.Entry<YearMonth, Agregador.Soma> mes : agregador.getPorMes().entrySet()) {
+            saida.write(separador);
+            objetoJson(saida, "mes", mes.getKey().toString(), mes.getValue());
+            separador = ",\n    ";
+        }
+        saida.write("\n  ]\n}\n");
+    }
+
+    private static void linhaCsv(Writer saida, String secao, String chave, Agregador.Soma soma) throws IOException {
+        saida.write(secao + "," + textoCsv(chave) + "," + Dinheiro.paraArquivo(soma.getReceitas()) + ","
+                + Dinheiro.paraArquivo(soma.getDespesas()) + "," + Dinheiro.paraArquivo(soma.getSaldo()) + ","
+                + soma.getQuantidade() + "\n");
+    }
+
+    private static void objetoJson(Writer saida, String campo, String chave, Agregador.Soma soma) throws IOException {
+        saida.write("{");
+        if (campo != null) {
+            saida.write("\"" + campo + "\": " + textoJson(chave) + ", ");
+        }
+        saida.write("\"receitas\": " + Dinheiro.paraArquivo(soma.getReceitas())
+                + ", \"despesas\": " + Dinheiro.paraArquivo(soma.getDespesas())
+                + ", \"saldo\": " + Dinheiro.paraArquivo(soma.getSaldo())
+                + ", \"quantidade\": " + soma.getQuantidade() + "}");
+    }
+
+    private static String textoCsv(String texto) {
+        if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0) {
+            return texto;
+        }
+        return "\"" + texto.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String textoJson(String texto) {
+        StringBuilder sb = new StringBuilder(texto.length() + 2).append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
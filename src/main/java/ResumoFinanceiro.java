@@ -0,0 +1,62 @@
+import java.util.Collections;
+import java.util.Map;
+
+// Fotografia dos totais mantidos pela Calculadora; montar uma custa o número de
+// categorias, não o número de transações. Valores em centavos.
+public class ResumoFinanceiro {
+    private final long receitas;
+    private final long despesas;
+    private final int quantidade;
+    private final Map<String, Totais> porCategoria;
+
+    ResumoFinanceiro(long receitas, long despesas, int quantidade, Map<String, Totais> porCategoria) {
+        this.receitas = receitas;
+        this.despesas = despesas;
+        this.quantidade = quantidade;
+        this.porCategoria = Collections.unmodifiableMap(porCategoria);
+    }
+
+    public long getReceitas() {
+        return receitas;
+    }
+
+    public long getDespesas() {
+        return despesas;
+    }
+
+    public long getSaldo() {
+        return receitas - despesas;
+    }
+
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    public Map<String, Totais> getPorCategoria() {
+        return porCategoria;
+    }
+
+    public static class Totais {
+        private final long receitas;
+        private final long despesas;
+        private final int quantidade;
+
+        Totais(long receitas, long despesas, int quantidade) {
+            this.receitas = receitas;
+            this.despesas = despesas;
+            this.quantidade = quantidade;
+        }
+
+        public long getReceitas() {
+            return receitas;
+        }
+
+        public long getDespesas() {
+            return despesas;
+        }
+
+        public int getQuantidade() {
+            return quantidade;
+        }
+    }
+}
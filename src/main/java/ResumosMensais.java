@@ -0,0 +1,165 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+// Totais por mês e categoria (centavos), gravados junto com o livro-caixa em
+// transações.resumos. Uma década de histórico cabe em algumas centenas de linhas, então o
+// painel pode ser desenhado antes de o arquivo de transações terminar de carregar.
+//
+// Formato: uma linha por mês e categoria, categoria por último
+//   AAAA-MM;receitas;despesas;quantidade;categoria
+public class ResumosMensais {
+    private final TreeMap<YearMonth, Map<String, Acumulado>> meses = new TreeMap<>();
+
+    // Transações vêm quase sempre em ordem de data: evita recriar o YearMonth a cada uma
+    private LocalDate ultimaData;
+    private YearMonth ultimoMes;
+
+    // Soma a transação no seu mês, se o mês estiver entre os informados (null = qualquer)
+    public void registrar(Transacao t, Collection<YearMonth> somente) {
+        if (t.getData() != ultimaData) {
+            ultimaData = t.getData();
+            ultimoMes = YearMonth.from(ultimaData);
+        }
+        if (somente != null && !somente.contains(ultimoMes)) {
+            return;
+        }
+
+        Acumulado acumulado = meses.computeIfAbsent(ultimoMes, m -> new HashMap<>())
+                .computeIfAbsent(t.getCategoria(), c -> new Acumulado());
+        if (t.getTipo() == Tipo.RECEITA) {
+            acumulado.receitas += t.getValorCentavos();
+        } else if (t.getTipo() == Tipo.DESPESA) {
+            acumulado.despesas += t.getValorCentavos();
+        }
+        acumulado.quantidade++;
+    }
+
+    // Apaga os meses informados, para serem somados de novo
+    public void descartar(Collection<YearMonth> mesesDescartados) {
+        meses.keySet().removeAll(mesesDescartados);
+    }
+
+    // Cópia só com os meses aceitos pelo filtro
+    public ResumosMensais filtrar(Predicate<YearMonth> manter) {
+        ResumosMensais filtrados = new ResumosMensais();
+        for (Map.Entry<YearMonth, Map<String, Acumulado>> mes : meses.entrySet()) {
+            if (manter.test(mes.getKey())) {
+                Map<String, Acumulado> categorias = new HashMap<>();
+                mes.getValue().forEach((categoria, acumulado) -> categorias.put(categoria, acumulado.copiar()));
+                filtrados.meses.put(mes.getKey(), categorias);
+            }
+        }
+        return filtrados;
+    }
+
+    // Passa pelos totais de cada mês e categoria, em ordem de mês
+    public void percorrer(Visitante visitante) {
+        for (Map.Entry<YearMonth, Map<String, Acumulado>> mes : meses.entrySet()) {
+            for (Map.Entry<String, Acumulado> categoria : mes.getValue().entrySet()) {
+                Acumulado acumulado = categoria.getValue();
+                visitante.visitar(mes.getKey(), categoria.getKey(), acumulado.receitas, acumulado.despesas, acumulado.quantidade);
+            }
+        }
+    }
+
+    public int getQuantidadeDeMeses() {
+        return meses.size();
+    }
+
+    // Totais de todos os meses, no mesmo formato dos da Calculadora
+    public ResumoFinanceiro getResumo() {
+        long receitas = 0;
+        long despesas = 0;
+        int quantidade = 0;
+        Map<String, Acumulado> categorias = new TreeMap<>();
+        for (Map<String, Acumulado> mes : meses.values()) {
+            for (Map.Entry<String, Acumulado> categoria : mes.entrySet()) {
+                Acumulado soma = categorias.computeIfAbsent(categoria.getKey(), c -> new Acumulado());
+                soma.somar(categoria.getValue());
+                receitas += categoria.getValue().receitas;
+                despesas += categoria.getValue().despesas;
+                quantidade += categoria.getValue().quantidade;
+            }
+        }
+
+        Map<String, ResumoFinanceiro.Totais> porCategoria = new TreeMap<>();
+        categorias.forEach((categoria, soma) -> porCategoria.put(categoria,
+                new ResumoFinanceiro.Totais(soma.receitas, soma.despesas, (int) soma.quantidade)));
+        return new ResumoFinanceiro(receitas, despesas, quantidade, porCategoria);
+    }
+
+    // Receitas - despesas de todos os meses até o mês da data (inclusive). Sem os dias
+    // do mês, é uma aproximação do Calculadora.saldoAte para o mês ainda em curso.
+    public long saldoAte(LocalDate data) {
+        long saldo = 0;
+        for (Map<String, Acumulado> mes : meses.headMap(YearMonth.from(data), true).values()) {
+            for (Acumulado acumulado : mes.values()) {
+                saldo += acumulado.receitas - acumulado.despesas;
+            }
+        }
+        return saldo;
+    }
+
+    void escrever(Writer saida) throws IOException {
+        for (Map.Entry<YearMonth, Map<String, Acumulado>> mes : meses.entrySet()) {
+            for (Map.Entry<String, Acumulado> categoria : new TreeMap<>(mes.getValue()).entrySet()) {
+                Acumulado acumulado = categoria.getValue();
+                saida.write(mes.getKey() + ";" + acumulado.receitas + ";" + acumulado.despesas + ";"
+                        + acumulado.quantidade + ";" + categoria.getKey() + "\n");
+            }
+        }
+    }
+
+    // Lê as linhas gravadas por escrever(); devolve null se alguma estiver corrompida
+    static ResumosMensais ler(BufferedReader entrada) throws IOException {
+        ResumosMensais resumos = new ResumosMensais();
+        String linha;
+        while ((linha = entrada.readLine()) != null) {
+            String[] partes = linha.split(";", 5);
+            if (partes.length < 5) {
+                return null;
+            }
+            try {
+                Acumulado acumulado = new Acumulado();
+                acumulado.receitas = Long.parseLong(partes[1]);
+                acumulado.despesas = Long.parseLong(partes[2]);
+                acumulado.quantidade = Long.parseLong(partes[3]);
+                resumos.meses.computeIfAbsent(YearMonth.parse(partes[0]), m -> new HashMap<>()).put(partes[4], acumulado);
+            } catch (NumberFormatException | DateTimeParseException e) {
+                return null;
+            }
+        }
+        return resumos;
+    }
+
+    public interface Visitante {
+        void visitar(YearMonth mes, String categoria, long receitas, long despesas, long quantidade);
+    }
+
+    private static class Acumulado {
+        long receitas;
+        long despesas;
+        long quantidade;
+
+        Acumulado copiar() {
+            Acumulado copia = new Acumulado();
+            copia.somar(this);
+            return copia;
+        }
+
+        void somar(Acumulado outro) {
+            receitas += outro.receitas;
+            despesas += outro.despesas;
+            quantidade += outro.quantidade;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Salva a calculadora em segundo plano depois de alterações. Espera uma pausa sem mudanças
+// (uma rajada de edições vira um salvamento só), mas nunca mais que ESPERA_MAXIMA_MS desde a
+// primeira alteração pendente. Grava uma cópia tirada de uma vez (Calculadora.copiar), então a
+// interface não espera o disco; o arquivo é trocado atomicamente, e um kill -9 no meio deixa
+// o arquivo anterior inteiro. Não deve ser usado junto com o Diario, que já grava cada mudança.
+public class SalvamentoAutomatico implements OuvinteDeCalculadora, AutoCloseable {
+    private static final long PAUSA_MS = 2_000;
+    private static final long ESPERA_MAXIMA_MS = 30_000;
+
+    private final Calculadora calculadora;
+    private final ScheduledExecutorService executor;
+    private ScheduledFuture<?> agendado;
+    // Momento (nanoTime) da primeira alteração ainda não salva; 0 = nenhuma pendente
+    private long primeiraPendente;
+
+    public SalvamentoAutomatico(Calculadora calculadora) {
+        this.calculadora = calculadora;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "salvamento-automatico");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public void adicionadas(int inicio, List<Transacao> adicionadas) {
+        agendar();
+    }
+
+    @Override
+    public void removida(int indice, Transacao removida) {
+        agendar();
+    }
+
+    @Override
+    public void substituida(int indice, Transacao anterior, Transacao nova) {
+        agendar();
+    }
+
+    @Override
+    public void recategorizadas(int[] indices) {
+        agendar();
+    }
+
+    // Marca uma alteração pendente; chamado pelos avisos da calculadora
+    public synchronized void agendar() {
+        if (executor.isShutdown()) {
+            return;
+        }
+        long agora = System.nanoTime();
+        if (primeiraPendente == 0) {
+            primeiraPendente = agora;
+        }
+        if (agendado != null) {
+            agendado.cancel(false);
+        }
+        long limite = ESPERA_MAXIMA_MS - TimeUnit.NANOSECONDS.toMillis(agora - primeiraPendente);
+        agendado = executor.schedule(this::salvar, Math.max(0, Math.min(PAUSA_MS, limite)), TimeUnit.MILLISECONDS);
+    }
+
+    private void salvar() {
+        synchronized (this) {
+            primeiraPendente = 0;
+        }
+        if (!calculadora.isAlterada()) {
+            return;
+        }
+        Calculadora.Copia copia = calculadora.copiar();
+        try {
+            // Operações reaplicadas do diário não entram nos meses alterados: refaz todos os resumos
+            GerenciadorDeArquivos.salvarAtomicamente(copia.getTransacoes(),
+                    GerenciadorDeArquivos.isDiarioAtivo() ? null : copia.getMesesAlterados(), copia.getAnosNaoCarregados());
+            calculadora.marcarSalva(copia);
+        } catch (IOException e) {
+            // A próxima alteração (ou o close) tenta de novo
+            System.out.println("Erro no salvamento automático: " + e.getMessage());
+        }
+    }
+
+    // Grava o que ainda estiver pendente sem bloquear quem chama: o salvamento final entra no
+    // executor, depois de um que esteja em andamento. O futuro termina quando ele acaba.
+    public CompletableFuture<Void> fechar() {
+        CompletableFuture<Void> concluido = new CompletableFuture<>();
+        synchronized (this) {
+            if (executor.isShutdown()) {
+                concluido.complete(null);
+                return concluido;
+            }
+            if (agendado != null) {
+                agendado.cancel(false);
+            }
+            executor.execute(() -> {
+                try {
+                    salvar();
+                } finally {
+                    concluido.complete(null);
+                }
+            });
+            executor.shutdown();
+        }
+        return concluido;
+    }
+
+    // Como fechar(), mas espera o salvamento final terminar
+    @Override
+    public void close() {
+        fechar().join();
+    }
+}
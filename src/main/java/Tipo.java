@@ -0,0 +1,48 @@
+// Tipo da transação. Receita soma no saldo, despesa subtrai; qualquer outro texto lido
+// dos arquivos vira OUTRO, que só conta na quantidade (como antes, quando era String).
+public enum Tipo {
+    RECEITA("Receita", 1),
+    DESPESA("Despesa", -1),
+    OUTRO("Outro", 0);
+
+    private final String nome;
+    private final int sinal;
+
+    Tipo(String nome, int sinal) {
+        this.nome = nome;
+        this.sinal = sinal;
+    }
+
+    // Texto gravado nos arquivos e mostrado na tela
+    public String getNome() {
+        return nome;
+    }
+
+    // +1, -1 ou 0: multiplicador do valor no saldo
+    public int getSinal() {
+        return sinal;
+    }
+
+    // Aceita o nome em qualquer caixa ("Despesa", "despesa"); o resto é OUTRO
+    public static Tipo deTexto(String texto) {
+        if (RECEITA.nome.equals(texto)) {
+            return RECEITA;
+        }
+        if (DESPESA.nome.equals(texto)) {
+            return DESPESA;
+        }
+        String limpo = texto == null ? "" : texto.trim();
+        if (limpo.equalsIgnoreCase(RECEITA.nome)) {
+            return RECEITA;
+        }
+        if (limpo.equalsIgnoreCase(DESPESA.nome)) {
+            return DESPESA;
+        }
+        return OUTRO;
+    }
+
+    @Override
+    public String toString() {
+        return nome;
+    }
+}
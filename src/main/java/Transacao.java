@@ -4,36 +4,45 @@ import java.time.LocalDate;
 
 public class Transacao {
     private LocalDate data;
-    private double valor;
+    private long valorCentavos;
     private String descricao;
-    private String tipo;
-    private String categoria;
+    private Tipo tipo;
+    // Id no dicionário de Categorias: o nome fica guardado uma vez só
+    private int categoria;
 
-    Transacao(LocalDate data, double valor, String descricao, String tipo, String categoria){
+    Transacao(LocalDate data, long valorCentavos, String descricao, Tipo tipo, String categoria){
+        this(data, valorCentavos, descricao, tipo, Categorias.id(categoria));
+    }
+
+    Transacao(LocalDate data, long valorCentavos, String descricao, Tipo tipo, int categoriaId){
         this.data = data;
-        this.valor = valor;
+        this.valorCentavos = valorCentavos;
         this.descricao = descricao;
         this.tipo = tipo;
-        this.categoria = categoria;
+        this.categoria = categoriaId;
     }
 
     public LocalDate getData(){
         return data;
     }
 
-    public double getValor(){
-        return valor;
+    public long getValorCentavos(){
+        return valorCentavos;
     }
 
     public String getDescricao(){
         return descricao;
     }
 
-    public String getTipo(){
+    public Tipo getTipo(){
         return tipo;
     }
 
     public String getCategoria(){
+        return Categorias.nome(categoria);
+    }
+
+    public int getCategoriaId(){
         return categoria;
     }
 
@@ -41,25 +50,25 @@ public class Transacao {
         this.data = data;
     }
 
-    public void setValor(double valor){
-        this.valor = valor;
+    public void setValorCentavos(long valorCentavos){
+        this.valorCentavos = valorCentavos;
     }
 
     public void setDescricao(String descricao){
         this.descricao = descricao;
     }
 
-    public void setTipo(String tipo){
+    public void setTipo(Tipo tipo){
         this.tipo = tipo;
     }
 
     public void setCategoria(String categoria){
-        this.categoria = categoria;
+        this.categoria = Categorias.id(categoria);
     }
 
     @Override
     public String toString(){
-        return String.format("%s | %-15s | R$ %8.2f | %-12s | %s", data, descricao, valor, tipo, categoria);
+        return String.format("%s | %-15s | R$ %8s | %-12s | %s", data, descricao, Dinheiro.formatarSemSimbolo(valorCentavos), tipo, getCategoria());
     }
 
 }
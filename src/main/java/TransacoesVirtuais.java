@@ -0,0 +1,183 @@
+import javafx.collections.ObservableListBase;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+// Itens da tabela sem cópia: cada posição é lida da lista da Calculadora só quando a
+// TableView pede (ou seja, só as linhas visíveis). Com o ArmazemColunar nenhum objeto por
+// linha fica na memória. Um filtro é só o array de posições devolvido por buscar().
+// Deve ser usada na thread da interface; as mudanças da Calculadora chegam como ouvinte.
+public class TransacoesVirtuais extends ObservableListBase<Transacao> implements OuvinteDeCalculadora {
+    private List<Transacao> origem = List.of();
+    // Monitor de quem altera a origem em outra thread (a Calculadora, ou a lista durante o
+    // carregamento): as leituras travam nele, não na origem, que pode ser só uma vista
+    private Object trava = origem;
+    // Linhas da origem já publicadas (durante o carregamento a origem ainda está crescendo)
+    private int tamanhoOrigem;
+    // Posições na origem, em ordem crescente; null mostra todas
+    private int[] linhas;
+
+    @Override
+    public Transacao get(int indice) {
+        // A origem pode estar sendo alterada em outra thread
+        synchronized (trava) {
+            return origem.get(linha(indice));
+        }
+    }
+
+    @Override
+    public int size() {
+        return linhas == null ? tamanhoOrigem : linhas.length;
+    }
+
+    // Posição na lista da Calculadora do item mostrado na posição informada
+    public int linha(int indice) {
+        if (linhas == null) {
+            if (indice >= tamanhoOrigem) {
+                throw new IndexOutOfBoundsException("Índice " + indice + ", tamanho " + tamanhoOrigem);
+            }
+            return indice;
+        }
+        return linhas[indice];
+    }
+
+    public boolean isFiltrada() {
+        return linhas != null;
+    }
+
+    // Troca a lista mostrada; as primeiras 'publicadas' linhas já podem ser lidas. Quem
+    // altera a lista fora da thread da interface deve fazê-lo com a trava informada.
+    public void exibir(List<Transacao> novaOrigem, Object novaTrava, int publicadas) {
+        trocar(novaOrigem, novaTrava, publicadas, null);
+    }
+
+    // Carregamento: mais linhas da origem foram publicadas
+    public void publicar(int publicadas) {
+        if (publicadas <= tamanhoOrigem) {
+            return;
+        }
+        int anterior = tamanhoOrigem;
+        tamanhoOrigem = publicadas;
+        if (linhas == null) {
+            beginChange();
+            nextAdd(anterior, publicadas);
+            endChange();
+        }
+    }
+
+    public void filtrar(int[] novasLinhas) {
+        trocar(origem, trava, tamanhoOrigem, novasLinhas);
+    }
+
+    public void mostrarTudo() {
+        if (linhas != null) {
+            trocar(origem, trava, tamanhoOrigem, null);
+        }
+    }
+
+    @Override
+    public void adicionadas(int inicio, List<Transacao> adicionadas) {
+        tamanhoOrigem += adicionadas.size();
+        if (linhas == null) {
+            beginChange();
+            nextAdd(inicio, inicio + adicionadas.size());
+            endChange();
+        } else {
+            // Linhas novas só entram no filtro na próxima busca; as posteriores andam para frente
+            int posicao = posicaoNoFiltro(inicio);
+            for (int i = posicao; i < linhas.length; i++) {
+                linhas[i] += adicionadas.size();
+            }
+        }
+    }
+
+    @Override
+    public void removida(int indice, Transacao removida) {
+        tamanhoOrigem--;
+        if (linhas == null) {
+            beginChange();
+            nextRemove(indice, removida);
+            endChange();
+            return;
+        }
+        int posicao = posicaoNoFiltro(indice);
+        boolean estava = posicao < linhas.length && linhas[posicao] == indice;
+        int[] novas = estava ? new int[linhas.length - 1] : linhas;
+        if (estava) {
+            System.arraycopy(linhas, 0, novas, 0, posicao);
+        }
+        for (int i = posicao + (estava ? 1 : 0); i < linhas.length; i++) {
+            novas[estava ? i - 1 : i] = linhas[i] - 1;
+        }
+        linhas = novas;
+        if (estava) {
+            beginChange();
+            nextRemove(posicao, removida);
+            endChange();
+        }
+    }
+
+    @Override
+    public void substituida(int indice, Transacao anterior, Transacao nova) {
+        int posicao = linhas == null ? indice : posicaoNoFiltro(indice);
+        if (linhas == null || (posicao < linhas.length && linhas[posicao] == indice)) {
+            beginChange();
+            nextSet(posicao, anterior);
+            endChange();
+        }
+    }
+
+    @Override
+    public void recategorizadas(int[] indices) {
+        // Mesmas posições, conteúdo novo: a tabela relê as linhas visíveis
+        trocar(origem, trava, tamanhoOrigem, linhas);
+    }
+
+    private void trocar(List<Transacao> novaOrigem, Object novaTrava, int publicadas, int[] novasLinhas) {
+        // Os removidos são lidos sob demanda, como os itens; só a quantidade costuma ser usada
+        List<Transacao> removidos = new Vista(origem, trava, tamanhoOrigem, linhas);
+        origem = novaOrigem;
+        trava = novaTrava;
+        tamanhoOrigem = publicadas;
+        linhas = novasLinhas;
+        beginChange();
+        nextReplace(0, size(), removidos);
+        endChange();
+    }
+
+    // Primeira posição do filtro cuja linha é >= a informada
+    private int posicaoNoFiltro(int linha) {
+        int posicao = Arrays.binarySearch(linhas, linha);
+        return posicao >= 0 ? posicao : -posicao - 1;
+    }
+
+    // Conteúdo anterior a uma troca, sem copiar as transações
+    private static class Vista extends AbstractList<Transacao> {
+        private final List<Transacao> origem;
+        private final Object trava;
+        private final int tamanho;
+        private final int[] linhas;
+
+        Vista(List<Transacao> origem, Object trava, int tamanho, int[] linhas) {
+            this.origem = origem;
+            this.trava = trava;
+            this.tamanho = tamanho;
+            this.linhas = linhas;
+        }
+
+        @Override
+        public Transacao get(int indice) {
+            synchronized (trava) {
+                int linha = linhas == null ? indice : linhas[indice];
+                // A origem pode ter encolhido depois da troca
+                return linha < origem.size() ? origem.get(linha) : null;
+            }
+        }
+
+        @Override
+        public int size() {
+            return linhas == null ? tamanho : linhas.length;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DiarioTest {
+    @TempDir
+    Path pasta;
+
+    private final Transacao cafe = new Transacao(LocalDate.of(2024, 3, 1), 850, "Café", Tipo.DESPESA, "Alimentação");
+    private final Transacao salario = new Transacao(LocalDate.of(2024, 3, 5), 500000, "Salário", Tipo.RECEITA, "Trabalho");
+
+    @BeforeEach
+    void prepararPasta() {
+        GerenciadorDeArquivos.setDiretorio(pasta);
+        GerenciadorDeArquivos.setFormato(FormatoDeArquivo.TEXTO);
+        GerenciadorDeArquivos.setParticionado(false);
+        GerenciadorDeArquivos.setDiarioAtivo(true);
+        GerenciadorDeArquivos.salvar(new ArrayList<>(List.of(cafe)));
+    }
+
+    @Test
+    void reaplicaAdicoesRemocoesEEdicoes() throws Exception {
+        try (Diario diario = Diario.abrir(List.of(cafe))) {
+            diario.registrarAdicao(salario);
+            diario.registrarEdicao(0, salario);
+            diario.registrarRemocao(1, salario);
+        }
+
+        List<Transacao> transacoes = new ArrayList<>(List.of(cafe));
+        assertEquals(3, Diario.reaplicar(transacoes));
+        assertEquals(List.of("Salário"), descricoes(transacoes));
+    }
+
+    @Test
+    void registroCortadoNoFimNaoEAplicadoMesmoParecendoValido() throws Exception {
+        try (Diario diario = Diario.abrir(List.of(cafe))) {
+            diario.registrarAdicao(salario);
+        }
+        // Queda no meio da gravação: a categoria ficou pela metade e não há '\n' no fim
+        anexar("A;2024-03-06;10.00;Pão;Despesa;Alimen");
+
+        List<Transacao> transacoes = new ArrayList<>(List.of(cafe));
+        assertEquals(1, Diario.reaplicar(transacoes));
+        assertEquals(List.of("Café", "Salário"), descricoes(transacoes));
+
+        // abrir() descarta a linha cortada e o próximo registro começa numa linha nova
+        try (Diario diario = Diario.abrir(transacoes)) {
+            diario.registrarAdicao(cafe);
+        }
+        transacoes = new ArrayList<>(List.of(cafe));
+        assertEquals(2, Diario.reaplicar(transacoes));
+        assertEquals(List.of("Café", "Salário", "Café"), descricoes(transacoes));
+    }
+
+    @Test
+    void registroCortadoNoMeioDeUmCaractereNaoEAplicado() throws Exception {
+        Diario.abrir(List.of(cafe)).close();
+        byte[] linha = "A;2024-03-06;10.00;Pão;Despesa;Alimentação\n".getBytes(StandardCharsets.UTF_8);
+        // Corta entre os dois bytes do "ç"
+        int corte = new String(linha, StandardCharsets.UTF_8).indexOf('ç') + 1;
+        Files.write(arquivoDoDiario(), Arrays.copyOf(linha, corte), StandardOpenOption.APPEND);
+
+        List<Transacao> transacoes = new ArrayList<>(List.of(cafe));
+        assertEquals(0, Diario.reaplicar(transacoes));
+        assertEquals(List.of("Café"), descricoes(transacoes));
+    }
+
+    @Test
+    void diarioDeOutroSnapshotEIgnorado() throws Exception {
+        try (Diario diario = Diario.abrir(List.of(cafe))) {
+            diario.registrarAdicao(salario);
+        }
+        // Arquivo principal regravado depois do diário
+        GerenciadorDeArquivos.salvar(new ArrayList<>(List.of(cafe, cafe)));
+
+        List<Transacao> transacoes = new ArrayList<>(List.of(cafe, cafe));
+        assertEquals(0, Diario.reaplicar(transacoes));
+        assertEquals(2, transacoes.size());
+    }
+
+    private void anexar(String texto) throws Exception {
+        Files.writeString(arquivoDoDiario(), texto, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    private Path arquivoDoDiario() {
+        return pasta.resolve("transações.diario");
+    }
+
+    private static List<String> descricoes(List<Transacao> transacoes) {
+        List<String> descricoes = new ArrayList<>();
+        for (Transacao t : transacoes) {
+            descricoes.add(t.getDescricao());
+        }
+        return descricoes;
+    }
+}
@@ -0,0 +1,62 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class DinheiroTest {
+    @Test
+    void converteFormatosComuns() {
+        assertEquals(4550, Dinheiro.converter("45,50"));
+        assertEquals(4550, Dinheiro.converter("45.5"));
+        assertEquals(-300000, Dinheiro.converter("-3000"));
+        assertEquals(300000, Dinheiro.converter("+3000"));
+        assertEquals(12, Dinheiro.converter(" 0,12 "));
+    }
+
+    @Test
+    void separadoresDeMilhar() {
+        assertEquals(123456, Dinheiro.converter("1.234,56"));
+        assertEquals(123456, Dinheiro.converter("1,234.56"));
+        assertEquals(123456789, Dinheiro.converter("1.234.567,89"));
+        assertEquals(-123456789, Dinheiro.converter("-1,234,567.89"));
+    }
+
+    @Test
+    void arredondaMeioCentavoParaCima() {
+        assertEquals(123457, Dinheiro.converter("1234.5678"));
+        assertEquals(123456, Dinheiro.converter("1234.5649"));
+        assertEquals(100, Dinheiro.converter("0,995"));
+    }
+
+    @Test
+    void limiteDeDezesseisAlgarismosInteiros() {
+        assertEquals(999_999_999_999_999_999L, Dinheiro.converter("9999999999999999,99"));
+        assertEquals(999_999_999_999_999_999L, Dinheiro.converter("9.999.999.999.999.999,99"));
+    }
+
+    @Test
+    void dezesseteAlgarismosNaoEstouramEmSilencio() {
+        // 17 algarismos ainda cabem em centavos num long: vai pelo BigDecimal, com o valor certo
+        assertEquals(1_234_567_890_123_456_700L, Dinheiro.converter("12345678901234567"));
+        // 99999999999999999 * 100 passa do maior long: antes estourava para um valor negativo
+        assertThrows(NumberFormatException.class, () -> Dinheiro.converter("99999999999999999"));
+        // 18 algarismos não cabem
+        assertThrows(NumberFormatException.class, () -> Dinheiro.converter("123456789012345678"));
+        assertThrows(NumberFormatException.class, () -> Dinheiro.converter("99.999.999.999.999.999,00"));
+    }
+
+    @Test
+    void textoInvalido() {
+        assertThrows(NumberFormatException.class, () -> Dinheiro.converter(null));
+        assertThrows(NumberFormatException.class, () -> Dinheiro.converter(""));
+        assertThrows(NumberFormatException.class, () -> Dinheiro.converter("-"));
+        assertThrows(NumberFormatException.class, () -> Dinheiro.converter("12a,00"));
+    }
+
+    @Test
+    void formatacao() {
+        assertEquals("R$ 1234,56", Dinheiro.formatar(123456));
+        assertEquals("-0,05", Dinheiro.formatarSemSimbolo(-5));
+        assertEquals("3000.00", Dinheiro.paraArquivo(300000));
+    }
+}
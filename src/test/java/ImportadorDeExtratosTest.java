@@ -0,0 +1,59 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ImportadorDeExtratosTest {
+    @TempDir
+    Path pasta;
+
+    @Test
+    void marcasDeDebitoECreditoSoDepoisDoValor() throws Exception {
+        List<Transacao> lidas = importar(
+                "01/03/2024;Mercado;150,00 D",
+                "02/03/2024;Salário;80,00 CR",
+                "03/03/2024;Tarifa;12,00DB",
+                "04/03/2024;Estorno;-5,00 c",
+                "05/03/2024;Reembolso;100.00 USD",
+                "06/03/2024;Assinatura;-100.00 USD",
+                "07/03/2024;Hotel;50,00 CAD");
+
+        assertEquals(List.of(Tipo.DESPESA, Tipo.RECEITA, Tipo.DESPESA, Tipo.RECEITA,
+                Tipo.RECEITA, Tipo.DESPESA, Tipo.RECEITA), tipos(lidas));
+        assertEquals(List.of(15000L, 8000L, 1200L, 500L, 10000L, 10000L, 5000L), valores(lidas));
+    }
+
+    private List<Transacao> importar(String... linhas) throws Exception {
+        Path arquivo = pasta.resolve("extrato.csv");
+        List<String> conteudo = new ArrayList<>();
+        conteudo.add("data;descrição;valor");
+        conteudo.addAll(List.of(linhas));
+        Files.write(arquivo, conteudo, StandardCharsets.UTF_8);
+
+        ImportadorDeExtratos importador = new ImportadorDeExtratos(new RegrasDeCategoria());
+        List<Transacao> lidas = importador.importar(arquivo);
+        assertEquals(0, importador.getLinhasInvalidas());
+        return lidas;
+    }
+
+    private static List<Tipo> tipos(List<Transacao> transacoes) {
+        List<Tipo> tipos = new ArrayList<>();
+        for (Transacao t : transacoes) {
+            tipos.add(t.getTipo());
+        }
+        return tipos;
+    }
+
+    private static List<Long> valores(List<Transacao> transacoes) {
+        List<Long> valores = new ArrayList<>();
+        for (Transacao t : transacoes) {
+            valores.add(t.getValorCentavos());
+        }
+        return valores;
+    }
+}
@@ -0,0 +1,104 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class IndiceDeDuplicatasTest {
+
+    @Test
+    void contaRepeticoesDaMesmaChave() {
+        IndiceDeDuplicatas indice = new IndiceDeDuplicatas();
+        assertEquals(0, indice.adicionar(19800, 850, 3));
+        assertEquals(1, indice.adicionar(19800, 850, 3));
+        assertEquals(2, indice.contar(19800, 850, 3));
+
+        // Basta uma parte diferente para ser outra chave
+        assertEquals(0, indice.contar(19801, 850, 3));
+        assertEquals(0, indice.contar(19800, 851, 3));
+        assertEquals(0, indice.contar(19800, 850, 4));
+    }
+
+    @Test
+    void partesDaChaveNaoSeMisturam() {
+        IndiceDeDuplicatas indice = new IndiceDeDuplicatas();
+        // Dia e descrição trocados, e uma descrição negativa que não pode apagar o dia
+        indice.adicionar(7, 100, 9);
+        indice.adicionar(-1, 100, -1);
+        assertEquals(0, indice.contar(9, 100, 7));
+        assertEquals(0, indice.contar(0, 100, -1));
+        assertEquals(0, indice.contar(-1, 100, 0));
+        assertEquals(1, indice.contar(7, 100, 9));
+        assertEquals(1, indice.contar(-1, 100, -1));
+    }
+
+    @Test
+    void chavesComOMesmoEspalhamentoFicamSeparadas() {
+        // chave * K + valor dá o mesmo número para (chave, valor) e (chave + 1, valor - K):
+        // as duas caem na mesma posição e só a comparação completa as separa
+        long k = 0x9E3779B97F4A7C15L;
+        IndiceDeDuplicatas indice = new IndiceDeDuplicatas();
+        for (int i = 0; i < 20; i++) {
+            indice.adicionar(0, 1000 - k * i, i);
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals(1, indice.contar(0, 1000 - k * i, i));
+            assertEquals(0, indice.contar(0, 1000 - k * i, i + 1));
+        }
+
+        assertEquals(1, indice.remover(0, 1000 - k * 5, 5));
+        assertEquals(0, indice.contar(0, 1000 - k * 5, 5));
+        // A posição que ficou com contagem zero não pode esconder as que vieram depois dela
+        for (int i = 6; i < 20; i++) {
+            assertEquals(1, indice.contar(0, 1000 - k * i, i));
+        }
+        assertEquals(0, indice.adicionar(0, 1000 - k * 5, 5));
+    }
+
+    @Test
+    void removerChaveAusenteOuZeradaDevolveZero() {
+        IndiceDeDuplicatas indice = new IndiceDeDuplicatas();
+        assertEquals(0, indice.remover(19800, 850, 3));
+
+        indice.adicionar(19800, 850, 3);
+        assertEquals(1, indice.remover(19800, 850, 3));
+        assertEquals(0, indice.remover(19800, 850, 3));
+        assertEquals(0, indice.contar(19800, 850, 3));
+        assertEquals(0, indice.adicionar(19800, 850, 3));
+    }
+
+    @Test
+    void mesmoResultadoQueUmMapaAoCrescerERemover() {
+        Random aleatorio = new Random(42);
+        IndiceDeDuplicatas indice = new IndiceDeDuplicatas(4);
+        Map<List<Long>, Integer> esperado = new HashMap<>();
+        List<List<Long>> usadas = new ArrayList<>();
+
+        // Faixas pequenas para repetir chaves; a tabela cresce várias vezes a partir de 16
+        for (int passo = 0; passo < 50_000; passo++) {
+            int dia = 19700 + aleatorio.nextInt(200);
+            long valor = aleatorio.nextInt(50) * 100L - 2000;
+            int descricao = aleatorio.nextInt(30);
+            List<Long> chave = List.of((long) dia, valor, (long) descricao);
+            int antes = esperado.getOrDefault(chave, 0);
+            if (aleatorio.nextInt(3) == 0) {
+                assertEquals(antes, indice.remover(dia, valor, descricao));
+                if (antes > 0) {
+                    esperado.put(chave, antes - 1);
+                }
+            } else {
+                assertEquals(antes, indice.adicionar(dia, valor, descricao));
+                esperado.put(chave, antes + 1);
+                usadas.add(chave);
+            }
+        }
+
+        for (List<Long> chave : usadas) {
+            assertEquals(esperado.get(chave).intValue(),
+                    indice.contar(chave.get(0).intValue(), chave.get(1), chave.get(2).intValue()));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LivroParticionadoTest {
+    @TempDir
+    Path pasta;
+
+    private final List<Transacao> anterior = List.of(
+            new Transacao(LocalDate.of(2020, 1, 10), 850, "Café", Tipo.DESPESA, "Alimentação"),
+            new Transacao(LocalDate.of(2020, 2, 5), 500000, "Salário", Tipo.RECEITA, "Trabalho"),
+            new Transacao(LocalDate.of(2021, 3, 1), 12000, "Mercado", Tipo.DESPESA, "Alimentação"));
+
+    @BeforeEach
+    void prepararPasta() {
+        GerenciadorDeArquivos.setDiretorio(pasta);
+        GerenciadorDeArquivos.setFormato(FormatoDeArquivo.TEXTO);
+        GerenciadorDeArquivos.setParticionado(true);
+    }
+
+    @AfterEach
+    void desligarParticionado() {
+        GerenciadorDeArquivos.setParticionado(false);
+    }
+
+    @Test
+    void salvamentoInterrompidoAntesDoManifestoMantemOSnapshotAnterior() throws Exception {
+        GerenciadorDeArquivos.salvarAtomicamente(anterior);
+        ResumoFinanceiro resumoAnterior = GerenciadorDeArquivos.carregarResumos().getResumo();
+
+        List<Transacao> nova = new ArrayList<>(anterior);
+        nova.set(0, new Transacao(LocalDate.of(2020, 1, 10), 900, "Café", Tipo.DESPESA, "Alimentação"));
+        nova.add(new Transacao(LocalDate.of(2021, 4, 2), 3000, "Ônibus", Tipo.DESPESA, "Transporte"));
+
+        // Os anos são gravados, mas o manifesto não consegue ser trocado: o mesmo estado em
+        // que uma queda entre os arquivos dos anos e o manifesto deixaria a pasta
+        Path temporarioDoManifesto = LivroParticionado.caminhoDoManifesto().resolveSibling(LivroParticionado.MANIFESTO + ".tmp");
+        Files.createDirectory(temporarioDoManifesto);
+        assertThrows(IOException.class, () -> GerenciadorDeArquivos.salvarAtomicamente(nova));
+        Files.delete(temporarioDoManifesto);
+
+        LivroParticionado livro = LivroParticionado.ler();
+        assertEquals(2, livro.getQuantidade(2020));
+        assertEquals(1, livro.getQuantidade(2021));
+        assertEquals(List.of(850L, 500000L), valores(livro.ler(2020)));
+        assertEquals(List.of(12000L), valores(livro.ler(2021)));
+
+        // Os resumos gravados continuam valendo para o snapshot que o manifesto aponta
+        ResumosMensais resumos = GerenciadorDeArquivos.carregarResumos();
+        assertNotNull(resumos);
+        assertEquals(resumoAnterior.getReceitas(), resumos.getResumo().getReceitas());
+        assertEquals(resumoAnterior.getDespesas(), resumos.getResumo().getDespesas());
+        assertEquals(resumoAnterior.getQuantidade(), resumos.getResumo().getQuantidade());
+
+        // O salvamento seguinte vale e leva embora as sobras do que foi interrompido
+        GerenciadorDeArquivos.salvarAtomicamente(nova);
+        livro = LivroParticionado.ler();
+        assertEquals(List.of(900L, 500000L), valores(livro.ler(2020)));
+        assertEquals(List.of(12000L, 3000L), valores(livro.ler(2021)));
+        assertEquals(4, GerenciadorDeArquivos.carregarResumos().getResumo().getQuantidade());
+
+        Set<String> esperados = new TreeSet<>(Set.of(LivroParticionado.MANIFESTO, livro.getArquivo(2020), livro.getArquivo(2021)));
+        assertEquals(esperados, arquivosNaPasta());
+    }
+
+    @Test
+    void anoRegravadoGanhaOutroNome() throws Exception {
+        GerenciadorDeArquivos.salvarAtomicamente(anterior);
+        LivroParticionado livro = LivroParticionado.ler();
+        String primeiro = livro.getArquivo(2020);
+
+        List<Transacao> nova = new ArrayList<>(anterior);
+        nova.remove(0);
+        GerenciadorDeArquivos.salvarAtomicamente(nova, List.of(YearMonth.of(2020, 1)), Set.of());
+
+        livro = LivroParticionado.ler();
+        assertEquals(1, livro.getQuantidade(2020));
+        assertNotEquals(primeiro, livro.getArquivo(2020));
+        assertFalse(Files.exists(LivroParticionado.caminhoDoArquivo(primeiro)));
+    }
+
+    private Set<String> arquivosNaPasta() throws IOException {
+        try (Stream<Path> arquivos = Files.list(LivroParticionado.pasta())) {
+            Set<String> nomes = new TreeSet<>();
+            arquivos.forEach(arquivo -> nomes.add(arquivo.getFileName().toString()));
+            return nomes;
+        }
+    }
+
+    private static List<Long> valores(List<Transacao> transacoes) {
+        List<Long> valores = new ArrayList<>();
+        for (Transacao t : transacoes) {
+            valores.add(t.getValorCentavos());
+        }
+        return valores;
+    }
+}
@@ -0,0 +1,154 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.PatternSyntaxException;
+import org.junit.jupiter.api.Test;
+
+class RegrasDeCategoriaTest {
+    private static final LocalDate HOJE = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void semRegraQueCaseFicaEmOutros() {
+        RegrasDeCategoria regras = new RegrasDeCategoria().adicionar("mercado", "Alimentação");
+        assertEquals("Outros", regras.categorizar("Posto Shell", 5000, HOJE));
+        assertEquals("Outros", new RegrasDeCategoria().categorizar("Mercado", 5000, HOJE));
+    }
+
+    @Test
+    void palavrasSobrepostasValeAPrimeiraRegra() {
+        // Em "ushers" as três palavras terminam em posições diferentes; a ordem das regras decide
+        RegrasDeCategoria regras = new RegrasDeCategoria()
+                .adicionar("hers", "A")
+                .adicionar("she", "B")
+                .adicionar("he", "C");
+        assertEquals("A", regras.categorizar("ushers", 100, HOJE));
+        assertEquals("B", regras.categorizar("ushe", 100, HOJE));
+        assertEquals("C", regras.categorizar("he", 100, HOJE));
+
+        regras = new RegrasDeCategoria()
+                .adicionar("he", "C")
+                .adicionar("she", "B")
+                .adicionar("hers", "A");
+        assertEquals("C", regras.categorizar("ushers", 100, HOJE));
+    }
+
+    @Test
+    void palavraDentroDeOutraPalavra() {
+        RegrasDeCategoria regras = new RegrasDeCategoria()
+                .adicionar("mercado livre", "Compras")
+                .adicionar("mercado", "Alimentação");
+        assertEquals("Compras", regras.categorizar("Compra MERCADO LIVRE", 100, HOJE));
+        assertEquals("Alimentação", regras.categorizar("Supermercado Extra", 100, HOJE));
+        // "mercado livr" chega perto da palavra maior e tem que voltar para a menor pela falha
+        assertEquals("Alimentação", regras.categorizar("mercado livr", 100, HOJE));
+        assertEquals("Outros", regras.categorizar("livre", 100, HOJE));
+    }
+
+    @Test
+    void ignoraAcentosEMaiusculas() {
+        RegrasDeCategoria regras = new RegrasDeCategoria().adicionar("Açougue", "Alimentação");
+        assertEquals("Alimentação", regras.categorizar("ACOUGUE DO ZÉ", 100, HOJE));
+        assertEquals("Alimentação", regras.categorizar("açougue", 100, HOJE));
+    }
+
+    @Test
+    void referenciaAGrupoNaoPassaPeloFiltroCombinado() {
+        // Juntas numa alternativa, o \1 da segunda apontaria para o grupo da primeira
+        RegrasDeCategoria regras = new RegrasDeCategoria()
+                .adicionar(null, "(a)b", Long.MIN_VALUE, Long.MAX_VALUE, null, null, "Primeira")
+                .adicionar(null, "(x) \\1", Long.MIN_VALUE, Long.MAX_VALUE, null, null, "Repetida");
+        assertEquals("Repetida", regras.categorizar("x x", 100, HOJE));
+        assertEquals("Primeira", regras.categorizar("ab", 100, HOJE));
+        assertEquals("Outros", regras.categorizar("x y", 100, HOJE));
+
+        regras = new RegrasDeCategoria()
+                .adicionar(null, "^uber", Long.MIN_VALUE, Long.MAX_VALUE, null, null, "Transporte")
+                .adicionar(null, "(?<nome>\\w+) \\k<nome>", Long.MIN_VALUE, Long.MAX_VALUE, null, null, "Repetida");
+        assertEquals("Transporte", regras.categorizar("Uber *Trip", 100, HOJE));
+        assertEquals("Repetida", regras.categorizar("pix pix", 100, HOJE));
+        assertEquals("Outros", regras.categorizar("pix joao", 100, HOJE));
+    }
+
+    @Test
+    void mesmoGrupoNomeadoEmDuasRegras() {
+        // Cada uma compila sozinha; a alternativa das duas definiria <v> duas vezes
+        RegrasDeCategoria regras = new RegrasDeCategoria()
+                .adicionar(null, "(?<v>pix)", Long.MIN_VALUE, Long.MAX_VALUE, null, null, "Pix")
+                .adicionar(null, "(?<v>ted)", Long.MIN_VALUE, Long.MAX_VALUE, null, null, "Transferência");
+        assertEquals("Pix", regras.categorizar("Pix recebido", 100, HOJE));
+        assertEquals("Transferência", regras.categorizar("TED enviada", 100, HOJE));
+        assertEquals("Outros", regras.categorizar("Boleto", 100, HOJE));
+    }
+
+    @Test
+    void expressaoSoValeSeAPalavraTambemAparecer() {
+        RegrasDeCategoria regras = new RegrasDeCategoria()
+                .adicionar("ifood", "\\d{3}", Long.MIN_VALUE, Long.MAX_VALUE, null, null, "Delivery")
+                .adicionar(null, "^pedido", Long.MIN_VALUE, Long.MAX_VALUE, null, null, "Pedidos");
+        assertEquals("Delivery", regras.categorizar("iFood pedido 123", 100, HOJE));
+        assertEquals("Outros", regras.categorizar("iFood", 100, HOJE));
+        assertEquals("Outros", regras.categorizar("loja 123", 100, HOJE));
+        assertEquals("Pedidos", regras.categorizar("pedido 123", 100, HOJE));
+    }
+
+    @Test
+    void faixasDeValorEData() {
+        RegrasDeCategoria regras = new RegrasDeCategoria()
+                .adicionar("uber", null, 0, 5000, null, null, "Transporte")
+                .adicionar("uber", null, Long.MIN_VALUE, Long.MAX_VALUE,
+                        LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), "Viagem")
+                .adicionar("uber", "Outros Gastos");
+        assertEquals("Transporte", regras.categorizar("Uber", 5000, HOJE));
+        assertEquals("Viagem", regras.categorizar("Uber", 5001, LocalDate.of(2024, 1, 31)));
+        assertEquals("Outros Gastos", regras.categorizar("Uber", 5001, HOJE));
+    }
+
+    @Test
+    void expressaoInvalidaNaoDeixaRegraPelaMetade() {
+        RegrasDeCategoria regras = new RegrasDeCategoria().adicionar("mercado", "Alimentação");
+        assertThrows(PatternSyntaxException.class, () ->
+                regras.adicionar("posto", "(", Long.MIN_VALUE, Long.MAX_VALUE, null, null, "Transporte"));
+        assertEquals(1, regras.getQuantidade());
+
+        regras.adicionar("farmacia", "Saúde");
+        assertEquals("Saúde", regras.categorizar("Farmácia", 100, HOJE));
+        assertEquals("Outros", regras.categorizar("posto", 100, HOJE));
+    }
+
+    @Test
+    void mesmoResultadoQueProcurarCadaPalavra() {
+        // Alfabeto pequeno para muitas sobreposições; mais de 64 regras para usar vários blocos
+        Random aleatorio = new Random(7);
+        RegrasDeCategoria regras = new RegrasDeCategoria();
+        List<String> palavras = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            String palavra = aleatorias(aleatorio, 2 + aleatorio.nextInt(5));
+            palavras.add(palavra);
+            regras.adicionar(palavra, "Regra " + i);
+        }
+
+        for (int teste = 0; teste < 2000; teste++) {
+            String descricao = aleatorias(aleatorio, aleatorio.nextInt(12));
+            String esperada = "Outros";
+            for (int i = 0; i < palavras.size(); i++) {
+                if (descricao.contains(palavras.get(i))) {
+                    esperada = "Regra " + i;
+                    break;
+                }
+            }
+            assertEquals(esperada, regras.categorizar(descricao, 100, HOJE), descricao);
+        }
+    }
+
+    private static String aleatorias(Random aleatorio, int tamanho) {
+        StringBuilder sb = new StringBuilder(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            sb.append("abcd".charAt(aleatorio.nextInt(4)));
+        }
+        return sb.toString();
+    }
+}